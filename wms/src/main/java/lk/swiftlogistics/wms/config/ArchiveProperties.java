@@ -0,0 +1,34 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Archival of delivered orders from orders into the partitioned orders_archive.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.archive")
+public class ArchiveProperties {
+
+    /**
+     * Run the archiver. Archived orders stay readable through the include-archive lookups either way.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Delivered orders are archived once their delivery date is this far in the past.
+     */
+    private Duration retention = Duration.ofDays(90);
+
+    /**
+     * How often the archiver runs.
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * Orders moved per transaction.
+     */
+    private int batchSize = 5000;
+}
@@ -0,0 +1,55 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Automatic assignment of waiting orders to available drivers.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.auto-dispatch")
+public class AutoDispatchProperties {
+
+    /**
+     * Dispatch automatically as orders arrive and on every interval. A run can still be requested
+     * through POST /api/orders/auto-dispatch when off.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Wait after new orders arrive before dispatching, so a burst is planned together.
+     */
+    private Duration debounce = Duration.ofSeconds(2);
+
+    /**
+     * How often to dispatch regardless, e.g. for drivers who have become available again.
+     */
+    private Duration interval = Duration.ofMinutes(1);
+
+    /**
+     * Orders due further ahead than this are left for later runs.
+     */
+    private Duration horizon = Duration.ofDays(2);
+
+    /**
+     * Load, in kg, for drivers with no weight capacity of their own.
+     */
+    private double defaultCapacity = 500;
+
+    /**
+     * Weight, in kg, assumed for orders the CMS sent without one.
+     */
+    private double defaultOrderWeight = 1;
+
+    /**
+     * Most orders given to one driver in a run.
+     */
+    private int maxOrdersPerDriver = 50;
+
+    /**
+     * Candidate orders above which they are filtered and sorted in parallel.
+     */
+    private int parallelThreshold = 10_000;
+}
@@ -0,0 +1,42 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cache in front of single-order lookups by id and client reference (tracking status polling).
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.cache")
+public class CacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Orders kept per lookup key (id, client reference); the least recently used are evicted beyond this.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * How long a cached order is served after it was loaded. Bounds staleness if an invalidation is lost.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * How changes made by this instance reach the caches of other instances.
+     */
+    private Invalidation invalidation = Invalidation.LOCAL;
+
+    public enum Invalidation {
+        /**
+         * Single instance: only the local cache is invalidated
+         */
+        LOCAL,
+        /**
+         * Invalidations are broadcast to every instance through a RabbitMQ fanout exchange
+         */
+        RABBIT
+    }
+}
@@ -0,0 +1,24 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Retry of order and driver writes that lost an optimistic locking race to a concurrent change.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.conflict-retry")
+public class ConflictRetryProperties {
+
+    /**
+     * Attempts per write, including the first; once used up the caller gets a conflict (HTTP 409).
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Upper bound of the random pause before the first retry; grows linearly with each further attempt.
+     */
+    private Duration backoff = Duration.ofMillis(20);
+}
@@ -1,5 +1,6 @@
 package lk.swiftlogistics.wms.config;
 
+import lk.swiftlogistics.wms.web.OrderController;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -9,6 +10,7 @@ import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class CorsConfig implements WebMvcConfigurer {
@@ -27,6 +29,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedHeaders("*")
+                .exposedHeaders(OrderController.NEXT_CURSOR_HEADER)
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -40,6 +43,7 @@ public class CorsConfig implements WebMvcConfigurer {
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(List.of(OrderController.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,24 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * In-memory dispatch board behind the unassigned order and available driver listings.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.dispatch-board")
+public class DispatchBoardProperties {
+
+    /**
+     * Answer dispatcher listings from memory; when off they query the database as before.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the board is compared with the database and any drift repaired.
+     */
+    private Duration checkInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,40 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Server-sent event stream of order events per driver, for the driver app.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.driver-push")
+public class DriverPushProperties {
+
+    /**
+     * How often an idle stream gets a comment line, so proxies and the app can tell it is still open.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * A stream is closed after this long; the app reconnects with Last-Event-ID and misses nothing.
+     */
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+
+    /**
+     * How long the app is told to wait before reconnecting (the SSE retry field).
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(3);
+
+    /**
+     * Recent events kept per driver for replay after a reconnect. An app further behind is told to resync.
+     */
+    private int replayCapacity = 200;
+
+    /**
+     * Threads writing to the streams. A driver's events are always written by the same one, in order,
+     * so a slow connection only holds up the drivers sharing its thread.
+     */
+    private int fanOutThreads = 4;
+}
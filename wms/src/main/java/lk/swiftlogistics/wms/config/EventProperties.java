@@ -0,0 +1,51 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Publishing of order events to the order_updates and notifications queues.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.events")
+public class EventProperties {
+
+    /**
+     * Events waiting to be published; when full, new events are dropped and counted.
+     * A bulk assignment of 10,000 orders queues two messages per order.
+     */
+    private int bufferCapacity = 25_000;
+
+    /**
+     * Maximum number of messages sent before waiting for their publisher confirms.
+     */
+    private int batchSize = 200;
+
+    /**
+     * How often buffered events are flushed to the broker.
+     */
+    private Duration flushInterval = Duration.ofMillis(100);
+
+    /**
+     * How long to wait for a batch's confirms before treating the unconfirmed messages as failed.
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Publish attempts per message before it is dropped.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * How long a failed message waits before it is retried by a later flush; doubles with each further attempt.
+     * With the defaults, messages survive a broker outage of about 15 seconds.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Upper bound on the wait between attempts.
+     */
+    private Duration maxRetryBackoff = Duration.ofSeconds(30);
+}
@@ -0,0 +1,192 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning for CMS order ingestion from the orders queue.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.ingestion")
+public class IngestionProperties {
+
+    /**
+     * Start consuming the orders queue with the application; off for offline benchmarks and tests.
+     */
+    private boolean autoStartup = true;
+
+    /**
+     * Maximum number of messages a consumer collects before persisting them in one transaction.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Longest a consumer waits for a batch to fill; whatever has arrived by then is persisted.
+     */
+    private Duration batchReceiveTimeout = Duration.ofMillis(250);
+
+    /**
+     * Number of recently ingested client references remembered for duplicate detection.
+     */
+    private int dedupCapacity = 100_000;
+
+    /**
+     * Zone of the warehouse; CMS delivery times carrying an offset or 'Z' are converted to it.
+     */
+    private ZoneId warehouseZone = ZoneId.of("Asia/Colombo");
+
+    /**
+     * Retry and dead-letter policy for order messages that fail to process.
+     */
+    private final Retry retry = new Retry();
+
+    /**
+     * Consumer concurrency and prefetch for the orders queue.
+     */
+    private final Concurrency concurrency = new Concurrency();
+
+    /**
+     * Per-urgency ingestion lanes fed from the orders queue.
+     */
+    private final Lanes lanes = new Lanes();
+
+    /**
+     * Buffer between the normal/low lane consumers and the database.
+     */
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Total delivery attempts for an order message, including the first, before it is dead-lettered.
+         */
+        private int maxAttempts = 4;
+
+        /**
+         * Delay before the first retry.
+         */
+        private Duration initialDelay = Duration.ofSeconds(1);
+
+        /**
+         * Factor applied to the delay for each further retry.
+         */
+        private double multiplier = 5.0;
+
+        /**
+         * How long a retry or dead-letter publish, or a dead-letter replay, waits for its broker confirm;
+         * the original is only acked once its copy is confirmed, and requeued otherwise.
+         */
+        private Duration confirmTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Delay before each retry, in attempt order (maxAttempts - 1 entries).
+         */
+        public List<Duration> backoffDelays() {
+            List<Duration> delays = new ArrayList<>();
+            double millis = initialDelay.toMillis();
+            for (int attempt = 1; attempt < maxAttempts; attempt++) {
+                delays.add(Duration.ofMillis(Math.round(millis)));
+                millis *= multiplier;
+            }
+            return delays;
+        }
+    }
+
+    @Data
+    public static class Concurrency {
+
+        /**
+         * Let IngestionConcurrencyController scale consumers and prefetch; when false the container
+         * uses its own idle-based scaling between minConsumers and maxConsumers.
+         */
+        private boolean adaptive = true;
+
+        private int minConsumers = 1;
+
+        private int maxConsumers = 16;
+
+        /**
+         * Lower prefetch bound; never below the batch size, otherwise batches cannot fill.
+         */
+        private int minPrefetch = 100;
+
+        private int maxPrefetch = 500;
+
+        /**
+         * Backlog per consumer above which another consumer is added.
+         */
+        private int scaleUpDepthPerConsumer = 1_000;
+
+        /**
+         * Mean batch processing time above which consumers are removed rather than added.
+         */
+        private Duration maxBatchLatency = Duration.ofSeconds(2);
+
+        /**
+         * Share of the DB connection pool in use at which consumers are removed.
+         */
+        private double maxPoolUsage = 0.9;
+
+        private Duration adjustInterval = Duration.ofSeconds(5);
+
+        /**
+         * Run consumers on virtual threads (requires a Java 21+ runtime).
+         */
+        private boolean virtualThreads = false;
+    }
+
+    @Data
+    public static class Lanes {
+
+        /**
+         * Consumers moving orders from the orders queue into their lane; they do no database work.
+         */
+        private int triageConsumers = 2;
+
+        /**
+         * Consumers dedicated to the high lane, so urgent orders are ingested regardless of the normal backlog.
+         */
+        private int highConsumers = 2;
+
+        /**
+         * Consumers for the low lane; the normal lane is sized by the concurrency settings.
+         */
+        private int lowConsumers = 1;
+
+        /**
+         * Batch receive window for triage and the high lane, short so urgent orders do not wait for a batch to fill.
+         */
+        private Duration expressReceiveTimeout = Duration.ofMillis(20);
+
+        /**
+         * How long triage waits for its lane publishes to be confirmed before requeueing the batch.
+         */
+        private Duration confirmTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * Hand decoded orders to a single group-committing writer instead of saving them on the consumer thread.
+         * The high lane always saves on its own consumers.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Orders held between the consumers and the writer; consumers block while it is full.
+         */
+        private int capacity = 4_096;
+
+        /**
+         * Most orders committed in one transaction.
+         */
+        private int groupSize = 500;
+    }
+}
@@ -3,8 +3,12 @@ package lk.swiftlogistics.wms.config;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
 
 @Configuration
 public class RabbitConfig {
@@ -14,11 +18,55 @@ public class RabbitConfig {
     public static final String NOTIFICATIONS_QUEUE = "notifications";
     public static final String ORDER_UPDATES_QUEUE = "order_updates";
     
+    // Per-urgency lanes that incoming orders are triaged into before ingestion (see OrderLane)
+    public static final String ORDERS_HIGH_QUEUE = ORDERS_QUEUE + ".high";
+    public static final String ORDERS_NORMAL_QUEUE = ORDERS_QUEUE + ".normal";
+    public static final String ORDERS_LOW_QUEUE = ORDERS_QUEUE + ".low";
+    
+    // Fanout of order cache invalidations between WMS instances (wms.cache.invalidation=rabbit)
+    public static final String ORDER_CACHE_EXCHANGE = "wms.order-cache";
+    
+    // Orders that exhausted their retries, with the failure reason in the headers
+    public static final String ORDERS_DEAD_LETTER_QUEUE = ORDERS_QUEUE + ".dlq";
+    
+    /**
+     * Delay queue holding failed orders for the given backoff before they return to the orders queue.
+     * The delay is part of the name because a queue's TTL cannot change once declared.
+     */
+    public static String ordersRetryQueue(Duration delay) {
+        return ORDERS_QUEUE + ".retry." + delay.toMillis() + "ms";
+    }
+    
     @Bean
     public Queue ordersQueue() {
         return QueueBuilder.durable(ORDERS_QUEUE).build();
     }
     
+    @Bean
+    public Declarables ordersLaneQueues() {
+        return new Declarables(
+                QueueBuilder.durable(ORDERS_HIGH_QUEUE).build(),
+                QueueBuilder.durable(ORDERS_NORMAL_QUEUE).build(),
+                QueueBuilder.durable(ORDERS_LOW_QUEUE).build());
+    }
+    
+    @Bean
+    public Queue ordersDeadLetterQueue() {
+        return QueueBuilder.durable(ORDERS_DEAD_LETTER_QUEUE).build();
+    }
+    
+    @Bean
+    public Declarables ordersRetryQueues(IngestionProperties ingestionProperties) {
+        return new Declarables(ingestionProperties.getRetry().backoffDelays().stream()
+                .distinct()
+                .map(delay -> QueueBuilder.durable(ordersRetryQueue(delay))
+                        .ttl((int) delay.toMillis())
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(ORDERS_QUEUE)
+                        .build())
+                .toList());
+    }
+    
     @Bean
     public Queue notificationsQueue() {
         return QueueBuilder.durable(NOTIFICATIONS_QUEUE).build();
@@ -30,11 +78,78 @@ public class RabbitConfig {
     }
     
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+    @ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "rabbit")
+    public FanoutExchange orderCacheExchange() {
+        return new FanoutExchange(ORDER_CACHE_EXCHANGE);
+    }
+    
+    /**
+     * This instance's own server-named queue on the cache exchange, deleted when the instance disconnects
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "rabbit")
+    public AnonymousQueue orderCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+    
+    @Bean
+    @ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "rabbit")
+    public Binding orderCacheInvalidationBinding(AnonymousQueue orderCacheInvalidationQueue,
+                                                 FanoutExchange orderCacheExchange) {
+        return BindingBuilder.bind(orderCacheInvalidationQueue).to(orderCacheExchange);
+    }
+    
+    /**
+     * One message at a time with automatic acks; a lost invalidation only costs freshness until the TTL
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "rabbit")
+    public SimpleRabbitListenerContainerFactory orderCacheListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        return factory;
+    }
+    
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               IngestionProperties ingestionProperties) {
+        return ordersContainerFactory(connectionFactory, ingestionProperties, ingestionProperties.getBatchReceiveTimeout());
+    }
+    
+    /**
+     * Same as the default factory with a short batch receive window, for triage and the high lane
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory expressListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                IngestionProperties ingestionProperties) {
+        return ordersContainerFactory(connectionFactory, ingestionProperties,
+                ingestionProperties.getLanes().getExpressReceiveTimeout());
+    }
+    
+    private static SimpleRabbitListenerContainerFactory ordersContainerFactory(ConnectionFactory connectionFactory,
+                                                                               IngestionProperties ingestionProperties,
+                                                                               Duration batchReceiveTimeout) {
+        IngestionProperties.Concurrency concurrency = ingestionProperties.getConcurrency();
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setConcurrentConsumers(1);
-        factory.setMaxConcurrentConsumers(5);
+        factory.setConcurrentConsumers(concurrency.getMinConsumers());
+        if (!concurrency.isAdaptive()) {
+            // Otherwise IngestionConcurrencyController owns the consumer count
+            factory.setMaxConcurrentConsumers(concurrency.getMaxConsumers());
+        }
+        if (concurrency.isVirtualThreads()) {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("orders-consumer-"));
+        }
+        
+        // Consumers collect up to batchSize messages (or whatever arrives within the receive window)
+        // and hand them to the listener as one list; the listener acks after the batch commits
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(ingestionProperties.getBatchSize());
+        factory.setBatchReceiveTimeout(batchReceiveTimeout.toMillis());
+        factory.setPrefetchCount(Math.max(concurrency.getMinPrefetch(), ingestionProperties.getBatchSize()));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
         return factory;
     }
 }
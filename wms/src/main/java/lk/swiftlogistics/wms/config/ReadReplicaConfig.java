@@ -0,0 +1,74 @@
+package lk.swiftlogistics.wms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write routing, on when wms.datasource.replica.url is set: read-only transactions
+ * (@Transactional(readOnly = true), and Spring Data's own finders) run on the replica, everything else on the
+ * primary configured under spring.datasource.
+ *
+ * The routing decision needs the transaction's read-only flag, which JPA sets on the connection after
+ * obtaining it, so the application's DataSource hands out lazy connections that pick the real one at the
+ * first statement. Reads that must see their own or other instances' latest writes use a read-write
+ * transaction instead.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wms.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaPoolDataSource(ReplicaProperties replicaProperties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaProperties.getUrl())
+                .username(replicaProperties.getUsername())
+                .password(replicaProperties.getPassword())
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(@Qualifier("replicaPoolDataSource") HikariDataSource replica,
+                                               @Qualifier("primaryDataSource") HikariDataSource primary,
+                                               ReplicaProperties replicaProperties,
+                                               TaskScheduler taskScheduler,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaDataSource(replica, primary, replicaProperties, taskScheduler, meterRegistry);
+    }
+
+    /**
+     * The DataSource JPA, JdbcTemplate and Flyway use
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaDataSource replica) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replica);
+        return dataSource;
+    }
+}
@@ -0,0 +1,122 @@
+package lk.swiftlogistics.wms.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Connections for read-only transactions: from the replica while it is reachable and caught up, otherwise
+ * from the primary.
+ *
+ * Lag is measured on the replica every check interval: zero when it has replayed all the WAL it has
+ * received, else the time since the last transaction it replayed. A database that is not in recovery
+ * (e.g. a second standalone instance used locally) counts as current. A replica that cannot hand out a
+ * connection is taken out of use at once and checked again at the next interval.
+ */
+@Slf4j
+public class ReplicaDataSource extends DelegatingDataSource {
+
+    private static final String LAG_SECONDS = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final DataSource primary;
+    private final ReplicaProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final Counter replicaConnections;
+    private final Counter primaryConnections;
+
+    private volatile boolean replicaInUse = true;
+    private volatile double lagSeconds;
+
+    public ReplicaDataSource(DataSource replica, DataSource primary, ReplicaProperties properties,
+                             TaskScheduler taskScheduler, MeterRegistry meterRegistry) {
+        super(replica);
+        this.primary = primary;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        this.replicaConnections = connectionCounter(meterRegistry, "replica");
+        this.primaryConnections = connectionCounter(meterRegistry, "primary");
+        Gauge.builder("wms.datasource.replica.lag", this, source -> source.lagSeconds)
+                .description("Replication lag of the read replica, in seconds")
+                .register(meterRegistry);
+        Gauge.builder("wms.datasource.replica.in-use", this, source -> source.replicaInUse ? 1 : 0)
+                .description("Whether read-only transactions are currently sent to the replica")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void scheduleLagCheck() {
+        taskScheduler.scheduleWithFixedDelay(this::checkLag, properties.getCheckInterval());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaInUse) {
+            try {
+                Connection connection = super.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                takeOutOfUse("unreachable: " + e.getMessage());
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    public boolean isReplicaInUse() {
+        return replicaInUse;
+    }
+
+    /**
+     * Measure the replica's lag and put it in or out of use accordingly
+     */
+    public void checkLag() {
+        try (Connection connection = super.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet lag = statement.executeQuery(LAG_SECONDS)) {
+            lag.next();
+            lagSeconds = lag.getDouble(1);
+        } catch (SQLException e) {
+            takeOutOfUse("unreachable: " + e.getMessage());
+            return;
+        }
+
+        boolean caughtUp = lagSeconds * 1000 <= properties.getMaxLag().toMillis();
+        if (!caughtUp) {
+            takeOutOfUse("%.1fs behind".formatted(lagSeconds));
+        } else if (!replicaInUse) {
+            replicaInUse = true;
+            log.info("Read replica caught up ({}s behind), sending read-only transactions to it again", lagSeconds);
+        }
+    }
+
+    private void takeOutOfUse(String reason) {
+        if (replicaInUse) {
+            replicaInUse = false;
+            log.warn("Read replica {}; read-only transactions go to the primary until it recovers", reason);
+        }
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("wms.datasource.read-only.connections")
+                .description("Connections handed to read-only transactions, by the database they came from")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,35 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Optional read replica for read-only transactions. Without a url every query goes to spring.datasource.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.datasource.replica")
+public class ReplicaProperties {
+
+    /**
+     * JDBC url of the replica; setting it turns on read/write routing.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private int maximumPoolSize = 10;
+
+    /**
+     * Read-only transactions go to the primary while the replica is further behind than this.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * How often the replica's lag is measured.
+     */
+    private Duration checkInterval = Duration.ofSeconds(5);
+}
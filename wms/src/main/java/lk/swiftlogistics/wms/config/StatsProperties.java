@@ -0,0 +1,25 @@
+package lk.swiftlogistics.wms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Dashboard statistics for /api/orders/stats.
+ */
+@Data
+@ConfigurationProperties(prefix = "wms.stats")
+public class StatsProperties {
+
+    /**
+     * Serve order statistics from counters kept up to date by every create, assignment and status change,
+     * instead of an aggregate query per request.
+     */
+    private boolean inMemory = false;
+
+    /**
+     * How often in-memory counters are replaced by a fresh aggregate, correcting any drift.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,66 @@
+package lk.swiftlogistics.wms.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A delivered order moved out of orders by the archiver. Read-only: archived orders never change again.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive")
+@Data
+@NoArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String clientRef;
+
+    @Column(nullable = false)
+    private String customerName;
+
+    @Column(nullable = false)
+    private String deliveryAddress;
+
+    @Column(nullable = false)
+    private LocalDateTime deliveryDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    // Plain id rather than an association: the driver may have been deleted since
+    @Column(name = "driver_id")
+    private Long driverId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "package_info")
+    private String packageInfo;
+
+    @Column(name = "priority")
+    private String priority;
+
+    @Column(name = "tracking_number")
+    private String trackingNumber;
+
+    @Column(name = "warehouse_location")
+    private String warehouseLocation;
+
+    @Column(name = "weight")
+    private Double weight;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
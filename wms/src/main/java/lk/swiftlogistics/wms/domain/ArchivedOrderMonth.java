@@ -0,0 +1,30 @@
+package lk.swiftlogistics.wms.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Number of orders archived for one delivery month, kept by the archiver as it moves them
+ */
+@Entity
+@Table(name = "orders_archive_months")
+@Data
+@NoArgsConstructor
+public class ArchivedOrderMonth {
+
+    @Id
+    private LocalDate deliveryMonth;
+
+    @Column(nullable = false)
+    private long orders;
+
+    @Column(nullable = false)
+    private long highPriority;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,40 @@
+package lk.swiftlogistics.wms.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A delivery confirmed from the driver app, keyed by the idempotency key the app generated for it,
+ * so a confirmation sent again after a lost response is recognised instead of applied twice
+ */
+@Entity
+@Table(name = "delivery_confirmations")
+@Data
+@NoArgsConstructor
+public class DeliveryConfirmation {
+
+    public static final int MAX_KEY_LENGTH = 100;
+    public static final int MAX_TEXT_LENGTH = 2000;
+
+    @Id
+    @Column(length = MAX_KEY_LENGTH)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long driverId;
+
+    @Column(length = MAX_TEXT_LENGTH)
+    private String deliveryNotes;
+
+    @Column(length = MAX_TEXT_LENGTH)
+    private String deliveryProof;
+
+    @Column(nullable = false)
+    private LocalDateTime confirmedAt;
+}
@@ -34,10 +34,18 @@ public class Driver {
     @Column(nullable = false)
     private boolean available = true;
 
+    // Load the vehicle can carry, in kg; null for the auto-dispatch default
+    private Double weightCapacity;
+
     @OneToMany(mappedBy = "assignedDriver", fetch = FetchType.LAZY)
     @JsonIgnore // Prevent circular reference in JSON serialization
     private List<Order> assignedOrders;
 
+    // Optimistic locking: two dispatchers cannot both take an available driver
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -13,8 +13,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -33,10 +37,16 @@ public class Order {
     @Column(nullable = false)
     private OrderStatus status = OrderStatus.RECEIVED;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Lazy: most reads only need the driver's id, which is the foreign key; reads that need more fetch it explicitly
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id")
     private Driver assignedDriver;
 
+    // Optimistic locking: of two concurrent changes to an order, the one committing second fails instead of overwriting
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -0,0 +1,42 @@
+package lk.swiftlogistics.wms.domain;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Change to an order that downstream systems (CMS, driver app) are told about.
+ * Raised by OrderService inside the transaction and published once it commits.
+ */
+public record OrderEvent(
+        Type type,
+        Long orderId,
+        String clientRef,
+        OrderStatus status,
+        OrderStatus previousStatus,
+        Long driverId,
+        String driverName,
+        LocalDateTime deliveryDate,
+        Instant occurredAt
+) {
+
+    public enum Type {
+        ASSIGNED,
+        STATUS_CHANGED,
+        DELIVERED
+    }
+
+    public static OrderEvent of(Type type, Order order, OrderStatus previousStatus) {
+        Driver driver = order.getAssignedDriver();
+        return new OrderEvent(
+                type,
+                order.getId(),
+                order.getClientRef(),
+                order.getStatus(),
+                previousStatus,
+                driver != null ? driver.getId() : null,
+                driver != null ? driver.getName() : null,
+                order.getDeliveryDate(),
+                Instant.now()
+        );
+    }
+}
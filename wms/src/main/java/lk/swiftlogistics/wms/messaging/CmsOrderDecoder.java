@@ -0,0 +1,158 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Decodes CMS order messages straight from the raw message bytes with a streaming parser,
+ * without building a JsonNode tree or an intermediate String.
+ *
+ * Field precedence matches what the CMS sends:
+ * trackingNumber over orderId, pickup.contact over source.contact,
+ * source.address over pickup.address, service.* over the flat estimatedDelivery/urgency,
+ * and package weight + description over package.packageInfo.
+ * package.weight is also decoded as a number, whether sent as a JSON number or a numeric string.
+ */
+@Component
+public class CmsOrderDecoder {
+
+    private final JsonFactory jsonFactory;
+
+    public CmsOrderDecoder(ObjectMapper objectMapper) {
+        // Parse errors are logged and put in dead-letter headers; keep the payload out of their locations
+        this.jsonFactory = objectMapper.getFactory().copy()
+                .disable(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION);
+    }
+
+    public CmsOrderMessage decode(byte[] body) throws IOException {
+        Fields fields = new Fields();
+        
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("CMS order message must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "trackingNumber" -> fields.trackingNumber = scalar(parser, value);
+                    case "orderId" -> fields.orderId = scalar(parser, value);
+                    case "estimatedDelivery" -> fields.estimatedDelivery = scalar(parser, value);
+                    case "urgency" -> fields.urgency = scalar(parser, value);
+                    case "pickup", "source", "service", "package" -> readSection(parser, value, name, fields);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        
+        return fields.toMessage();
+    }
+
+    private static void readSection(JsonParser parser, JsonToken value, String section, Fields fields) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            String text = scalar(parser, parser.nextToken());
+            switch (section) {
+                case "pickup" -> {
+                    if ("contact".equals(name)) {
+                        fields.pickupContact = text;
+                    } else if ("address".equals(name)) {
+                        fields.pickupAddress = text;
+                    }
+                }
+                case "source" -> {
+                    if ("contact".equals(name)) {
+                        fields.sourceContact = text;
+                    } else if ("address".equals(name)) {
+                        fields.sourceAddress = text;
+                    }
+                }
+                case "service" -> {
+                    if ("estimatedDelivery".equals(name)) {
+                        fields.serviceEstimatedDelivery = text;
+                    } else if ("urgency".equals(name)) {
+                        fields.serviceUrgency = text;
+                    }
+                }
+                case "package" -> {
+                    if ("weight".equals(name)) {
+                        fields.packageWeight = text;
+                    } else if ("description".equals(name)) {
+                        fields.packageDescription = text;
+                    } else if ("packageInfo".equals(name)) {
+                        fields.packageInfo = text;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Text of a scalar value; null for JSON null, and nested structures are skipped
+     */
+    private static String scalar(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            return token == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static final class Fields {
+        String trackingNumber;
+        String orderId;
+        String pickupContact;
+        String pickupAddress;
+        String sourceContact;
+        String sourceAddress;
+        String packageWeight;
+        String packageDescription;
+        String packageInfo;
+        String serviceEstimatedDelivery;
+        String estimatedDelivery;
+        String serviceUrgency;
+        String urgency;
+
+        CmsOrderMessage toMessage() {
+            String resolvedPackageInfo = packageWeight != null && packageDescription != null
+                    ? packageWeight + "kg " + packageDescription
+                    : packageInfo;
+            return new CmsOrderMessage(
+                    firstNonNull(trackingNumber, orderId),
+                    firstNonNull(pickupContact, sourceContact),
+                    firstNonNull(sourceAddress, pickupAddress),
+                    resolvedPackageInfo,
+                    firstNonNull(serviceEstimatedDelivery, estimatedDelivery),
+                    firstNonNull(serviceUrgency, urgency),
+                    weight(packageWeight)
+            );
+        }
+
+        private static Double weight(String text) {
+            if (text == null) {
+                return null;
+            }
+            try {
+                double weight = Double.parseDouble(text.trim());
+                return Double.isFinite(weight) && weight >= 0 ? weight : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String firstNonNull(String first, String second) {
+            return first != null ? first : second;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package lk.swiftlogistics.wms.messaging;
+
+/**
+ * Order message published by the CMS, with the nested (pickup/source/service)
+ * and flat layouts already resolved. Any field may be null when absent.
+ *
+ * @param weight package.weight in kg; null when absent, not a number, or negative
+ */
+public record CmsOrderMessage(
+        String clientRef,
+        String customerName,
+        String deliveryAddress,
+        String packageInfo,
+        String estimatedDelivery,
+        String urgency,
+        Double weight
+) {
+}
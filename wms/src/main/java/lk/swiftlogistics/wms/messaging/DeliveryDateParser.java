@@ -0,0 +1,162 @@
+package lk.swiftlogistics.wms.messaging;
+
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Parses CMS delivery dates without using exceptions for control flow.
+ *
+ * The input is classified by length and separator characters and the digits are read in place.
+ * Supported shapes:
+ * <ul>
+ *   <li>{@code 2024-06-01} - date only, delivered at 09:00</li>
+ *   <li>{@code 2024-06-01T14:30}, {@code 2024-06-01T14:30:00}, {@code 2024-06-01T14:30:00.123} - warehouse local time
+ *       ('T' or a space between date and time)</li>
+ *   <li>any of the above followed by {@code Z}, {@code +05:30}, {@code +0530} or {@code +05} - converted to the warehouse zone</li>
+ * </ul>
+ */
+@Component
+public class DeliveryDateParser {
+
+    static final int DEFAULT_DELIVERY_HOUR = 9;
+
+    private final ZoneId warehouseZone;
+
+    @Autowired
+    public DeliveryDateParser(IngestionProperties ingestionProperties) {
+        this(ingestionProperties.getWarehouseZone());
+    }
+
+    DeliveryDateParser(ZoneId warehouseZone) {
+        this.warehouseZone = warehouseZone;
+    }
+
+    /**
+     * @return the delivery time in the warehouse zone, or null if the text is not a supported format
+     */
+    public LocalDateTime parse(CharSequence text) {
+        int length = text.length();
+        if (length < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        if (length == 10) {
+            return LocalDateTime.of(year, month, day, DEFAULT_DELIVERY_HOUR, 0);
+        }
+
+        char separator = text.charAt(10);
+        if ((separator != 'T' && separator != ' ') || length < 16 || text.charAt(13) != ':') {
+            return null;
+        }
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+
+        int pos = 16;
+        int second = 0;
+        if (pos < length && text.charAt(pos) == ':') {
+            second = length >= pos + 3 ? digits(text, pos + 1, 2) : -1;
+            if (second < 0 || second > 59) {
+                return null;
+            }
+            pos += 3;
+        }
+
+        int nano = 0;
+        if (pos < length && (text.charAt(pos) == '.' || text.charAt(pos) == ',')) {
+            int start = ++pos;
+            while (pos < length && pos - start < 9 && isDigit(text.charAt(pos))) {
+                nano = nano * 10 + (text.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos == start) {
+                return null;
+            }
+            for (int scale = pos - start; scale < 9; scale++) {
+                nano *= 10;
+            }
+        }
+
+        LocalDateTime local = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        if (pos == length) {
+            return local;
+        }
+
+        int offsetSeconds = offsetSeconds(text, pos);
+        if (offsetSeconds == Integer.MIN_VALUE) {
+            return null;
+        }
+        return local.atOffset(ZoneOffset.ofTotalSeconds(offsetSeconds))
+                .atZoneSameInstant(warehouseZone)
+                .toLocalDateTime();
+    }
+
+    /**
+     * Reads a trailing 'Z', ±HH, ±HHMM or ±HH:MM; returns Integer.MIN_VALUE if malformed
+     */
+    private static int offsetSeconds(CharSequence text, int pos) {
+        int length = text.length();
+        char sign = text.charAt(pos);
+        if (sign == 'Z' || sign == 'z') {
+            return pos + 1 == length ? 0 : Integer.MIN_VALUE;
+        }
+        if (sign != '+' && sign != '-') {
+            return Integer.MIN_VALUE;
+        }
+
+        int remaining = length - pos - 1;
+        int hours;
+        int minutes = 0;
+        if (remaining == 2) {
+            hours = digits(text, pos + 1, 2);
+        } else if (remaining == 4) {
+            hours = digits(text, pos + 1, 2);
+            minutes = digits(text, pos + 3, 2);
+        } else if (remaining == 5 && text.charAt(pos + 3) == ':') {
+            hours = digits(text, pos + 1, 2);
+            minutes = digits(text, pos + 4, 2);
+        } else {
+            return Integer.MIN_VALUE;
+        }
+        if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59 || (hours == 18 && minutes > 0)) {
+            return Integer.MIN_VALUE;
+        }
+
+        int seconds = hours * 3600 + minutes * 60;
+        return sign == '-' ? -seconds : seconds;
+    }
+
+    /**
+     * Value of count decimal digits starting at offset, or -1 if any is not a digit
+     */
+    private static int digits(CharSequence text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,192 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scales normal-lane consumers and prefetch between the configured bounds; the high and low lanes
+ * and triage run fixed consumer counts (wms.ingestion.lanes).
+ *
+ * Every adjust interval it looks at, in order:
+ * <ol>
+ *   <li>DB pool saturation - threads waiting for a connection or usage above maxPoolUsage: remove a consumer,
+ *       more consumers would only queue on the pool</li>
+ *   <li>batch latency - mean batch time above maxBatchLatency: remove a consumer</li>
+ *   <li>queue depth - backlog above scaleUpDepthPerConsumer per consumer: add a consumer and raise prefetch</li>
+ *   <li>empty queue - remove a consumer and lower prefetch back towards the minimum</li>
+ * </ol>
+ * Each change is counted on wms.ingestion.scaling tagged with direction and reason.
+ * A new prefetch applies to consumers started after the change.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wms.ingestion.concurrency", name = "adaptive", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class IngestionConcurrencyController {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    // Null when the DataSource is not backed by a Hikari pool
+    private final HikariDataSource pool;
+    private final MeterRegistry meterRegistry;
+    private final TaskScheduler taskScheduler;
+    private final IngestionProperties.Concurrency bounds;
+    private final int minPrefetch;
+
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicInteger prefetch = new AtomicInteger();
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private long lastBatchCount;
+    private double lastBatchTotalNanos;
+
+    public IngestionConcurrencyController(RabbitListenerEndpointRegistry listenerRegistry,
+                                          AmqpAdmin amqpAdmin,
+                                          DataSource dataSource,
+                                          MeterRegistry meterRegistry,
+                                          IngestionProperties ingestionProperties,
+                                          TaskScheduler taskScheduler) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.pool = hikariPool(dataSource);
+        this.meterRegistry = meterRegistry;
+        this.taskScheduler = taskScheduler;
+        this.bounds = ingestionProperties.getConcurrency();
+        this.minPrefetch = Math.max(bounds.getMinPrefetch(), ingestionProperties.getBatchSize());
+
+        consumers.set(bounds.getMinConsumers());
+        prefetch.set(minPrefetch);
+        Gauge.builder("wms.ingestion.consumers", consumers, AtomicInteger::get)
+                .description("Target number of orders-queue consumers")
+                .register(meterRegistry);
+        Gauge.builder("wms.ingestion.prefetch", prefetch, AtomicInteger::get)
+                .description("Prefetch count for new orders-queue consumers")
+                .register(meterRegistry);
+        Gauge.builder("wms.ingestion.queue.depth", queueDepth, AtomicLong::get)
+                .description("Messages waiting in the normal lane at the last adjustment")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void scheduleAdjustments() {
+        taskScheduler.scheduleWithFixedDelay(this::adjust, bounds.getAdjustInterval());
+    }
+
+    public void adjust() {
+        SimpleMessageListenerContainer container = container();
+        if (container == null || !container.isRunning()) {
+            return;
+        }
+
+        QueueInformation queue = amqpAdmin.getQueueInfo(OrderLane.NORMAL.queue());
+        if (queue == null) {
+            return;
+        }
+        queueDepth.set(queue.getMessageCount());
+
+        int current = consumers.get();
+        long meanBatchMillis = meanBatchMillisSinceLastCheck();
+
+        if (isPoolSaturated()) {
+            scale(container, current - 1, "db-pool");
+        } else if (meanBatchMillis > bounds.getMaxBatchLatency().toMillis()) {
+            scale(container, current - 1, "latency");
+        } else if (queue.getMessageCount() > (long) current * bounds.getScaleUpDepthPerConsumer()) {
+            scale(container, current + 1, "queue-depth");
+        } else if (queue.getMessageCount() == 0) {
+            scale(container, current - 1, "idle");
+        }
+    }
+
+    private void scale(SimpleMessageListenerContainer container, int target, String reason) {
+        int current = consumers.get();
+        int next = Math.max(bounds.getMinConsumers(), Math.min(bounds.getMaxConsumers(), target));
+        if (next == current) {
+            return;
+        }
+
+        // Prefetch grows with the backlog so busy consumers are never starved between batches
+        int nextPrefetch = next > current
+                ? Math.min(bounds.getMaxPrefetch(), prefetch.get() * 2)
+                : Math.max(minPrefetch, prefetch.get() / 2);
+        container.setPrefetchCount(nextPrefetch);
+        container.setConcurrentConsumers(next);
+        consumers.set(next);
+        prefetch.set(nextPrefetch);
+
+        String direction = next > current ? "up" : "down";
+        Counter.builder("wms.ingestion.scaling")
+                .description("Consumer scaling decisions for the orders queue")
+                .tag("direction", direction)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.info("Scaled orders consumers {} from {} to {} (prefetch {}) due to {}",
+                direction, current, next, nextPrefetch, reason);
+    }
+
+    /**
+     * Whether threads are waiting for a primary database connection or usage is above maxPoolUsage
+     */
+    public boolean isPoolSaturated() {
+        HikariPoolMXBean mxBean = pool != null ? pool.getHikariPoolMXBean() : null;
+        if (mxBean == null) {
+            return false;
+        }
+        return mxBean.getThreadsAwaitingConnection() > 0
+                || mxBean.getActiveConnections() >= bounds.getMaxPoolUsage() * pool.getMaximumPoolSize();
+    }
+
+    /**
+     * The pool behind the application's DataSource; with a read replica that is a lazy routing proxy,
+     * which unwraps to the primary pool ingestion writes to
+     */
+    private static HikariDataSource hikariPool(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            log.warn("Could not unwrap the connection pool, ingestion will not back off on pool saturation: {}",
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private long meanBatchMillisSinceLastCheck() {
+        Timer timer = meterRegistry.find(OrderListener.BATCH_DURATION_METRIC).tag("lane", OrderLane.NORMAL.tag()).timer();
+        if (timer == null) {
+            return 0;
+        }
+        long count = timer.count();
+        double totalNanos = timer.totalTime(TimeUnit.NANOSECONDS);
+        long batches = count - lastBatchCount;
+        double nanos = totalNanos - lastBatchTotalNanos;
+        lastBatchCount = count;
+        lastBatchTotalNanos = totalNanos;
+        return batches > 0 ? (long) (nanos / batches / 1_000_000) : 0;
+    }
+
+    private SimpleMessageListenerContainer container() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(OrderListener.LISTENER_ID);
+        return container instanceof SimpleMessageListenerContainer simple ? simple : null;
+    }
+}
@@ -0,0 +1,51 @@
+package lk.swiftlogistics.wms.messaging;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one log line through per interval for a message that would otherwise be written per batch or
+ * per order, and counts the ones it held back so the next line can report them.
+ *
+ * Lock-free: concurrent consumers race for the slot with a compare-and-set, the losers only increment.
+ */
+final class LogSampler {
+
+    static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10);
+
+    private final long intervalNanos;
+    private final AtomicLong nextAt;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    LogSampler() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    LogSampler(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        this.nextAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return the number of calls held back since the last one let through, or -1 if this call must not log
+     */
+    long acquire() {
+        long now = System.nanoTime();
+        long next = nextAt.get();
+        if (now - next >= 0 && nextAt.compareAndSet(next, now + intervalNanos)) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Shortens a value taken from a payload before it is logged
+     */
+    static String abbreviate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength) + "...(" + value.length() + " chars)";
+    }
+}
@@ -0,0 +1,40 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lk.swiftlogistics.wms.service.OrderCacheInvalidation;
+import lk.swiftlogistics.wms.service.OrderLookupCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Applies order cache invalidations broadcast by the other WMS instances
+ */
+@Component
+@ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "rabbit")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCacheInvalidationListener {
+
+    private final OrderLookupCache orderLookupCache;
+    private final RabbitOrderCacheInvalidationChannel channel;
+    private final ObjectMapper objectMapper;
+
+    @RabbitListener(queues = "#{orderCacheInvalidationQueue.name}",
+            containerFactory = "orderCacheListenerContainerFactory")
+    public void onInvalidation(Message message) {
+        if (channel.isOwn(message)) {
+            return;
+        }
+        try {
+            orderLookupCache.evictRemote(objectMapper.readValue(message.getBody(), OrderCacheInvalidation.class));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable order cache invalidation: {}", e.getMessage());
+        }
+    }
+}
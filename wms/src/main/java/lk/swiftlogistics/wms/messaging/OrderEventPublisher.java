@@ -0,0 +1,231 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lk.swiftlogistics.wms.config.EventProperties;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lk.swiftlogistics.wms.domain.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes committed order events so the CMS and driver apps no longer need to poll.
+ *
+ * Every event goes to order_updates; assignments and deliveries also go to notifications.
+ * Events are buffered after commit and flushed in batches: a batch is sent back to back and
+ * its publisher confirms are awaited together, so the broker round trip is paid once per batch.
+ * Nacked or unconfirmed messages are held back and retried by a later flush, after retryBackoff doubling
+ * with each attempt up to maxRetryBackoff, until maxAttempts is reached. A flush only publishes what was
+ * buffered, or due for retry, when it started, so a broker outage costs one attempt per message per flush.
+ */
+@Component
+@Slf4j
+public class OrderEventPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final EventProperties eventProperties;
+    private final BlockingQueue<Outbound> buffer;
+    // Only touched by flush, which holds the lock
+    private final PriorityQueue<Outbound> retries = new PriorityQueue<>(Comparator.comparingLong(Outbound::retryAt));
+    private final MeterRegistry meterRegistry;
+    private final TaskScheduler taskScheduler;
+    private final Counter failed;
+    private final Counter dropped;
+
+    public OrderEventPublisher(RabbitTemplate rabbitTemplate,
+                               ObjectMapper objectMapper,
+                               EventProperties eventProperties,
+                               MeterRegistry meterRegistry,
+                               TaskScheduler taskScheduler) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.eventProperties = eventProperties;
+        this.buffer = new LinkedBlockingQueue<>(eventProperties.getBufferCapacity());
+        this.meterRegistry = meterRegistry;
+        this.taskScheduler = taskScheduler;
+        this.failed = Counter.builder("wms.events.failed")
+                .description("Order event publishes that were nacked or not confirmed in time")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("wms.events.dropped")
+                .description("Order events dropped because the buffer was full or attempts ran out")
+                .register(meterRegistry);
+        Gauge.builder("wms.events.buffered", buffer, BlockingQueue::size)
+                .description("Order events waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("wms.events.retrying", retries, PriorityQueue::size)
+                .description("Order events waiting to be published again after a failed attempt")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        Message message;
+        try {
+            message = toMessage(event);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event for order {}", event.type(), event.orderId(), e);
+            return;
+        }
+        enqueue(new Outbound(RabbitConfig.ORDER_UPDATES_QUEUE, message, event, 0, 0));
+        if (event.type() != OrderEvent.Type.STATUS_CHANGED) {
+            enqueue(new Outbound(RabbitConfig.NOTIFICATIONS_QUEUE, message, event, 0, 0));
+        }
+    }
+
+    @PostConstruct
+    void scheduleFlush() {
+        taskScheduler.scheduleWithFixedDelay(this::flush, eventProperties.getFlushInterval());
+    }
+
+    public synchronized void flush() {
+        int batchSize = eventProperties.getBatchSize();
+        List<Outbound> batch = new ArrayList<>(batchSize);
+        long now = System.nanoTime();
+        // Retries are polled off before any of this flush's failures are added back
+        List<Outbound> due = new ArrayList<>();
+        while (!retries.isEmpty() && retries.peek().retryAt() - now <= 0) {
+            due.add(retries.poll());
+        }
+        for (Outbound outbound : due) {
+            batch.add(outbound);
+            if (batch.size() == batchSize) {
+                publishBatch(batch);
+                batch.clear();
+            }
+        }
+        // Events buffered while this flush runs wait for the next one
+        int pending = buffer.size();
+        while (pending > 0) {
+            int drained = buffer.drainTo(batch, Math.min(pending, batchSize - batch.size()));
+            if (drained == 0) {
+                break;
+            }
+            pending -= drained;
+            if (batch.size() == batchSize) {
+                publishBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publishBatch(batch);
+        }
+    }
+
+    private void publishBatch(List<Outbound> batch) {
+        List<CorrelationData> confirms = new ArrayList<>(batch.size());
+        for (Outbound outbound : batch) {
+            CorrelationData correlation = new CorrelationData(outbound.message().getMessageProperties().getMessageId());
+            try {
+                rabbitTemplate.send("", outbound.queue(), outbound.message(), correlation);
+            } catch (AmqpException e) {
+                log.warn("Could not publish {} event for order {} to {}: {}",
+                        outbound.event().type(), outbound.event().orderId(), outbound.queue(), e.getMessage());
+                correlation = null;
+            }
+            confirms.add(correlation);
+        }
+
+        long deadline = System.nanoTime() + eventProperties.getConfirmTimeout().toNanos();
+        for (int i = 0; i < batch.size(); i++) {
+            Outbound outbound = batch.get(i);
+            if (confirms.get(i) != null && isConfirmed(confirms.get(i), deadline)) {
+                Counter.builder("wms.events.published")
+                        .description("Order events confirmed by the broker")
+                        .tag("queue", outbound.queue())
+                        .register(meterRegistry)
+                        .increment();
+            } else {
+                failed.increment();
+                retry(outbound);
+            }
+        }
+    }
+
+    private static boolean isConfirmed(CorrelationData correlation, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS).isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private void retry(Outbound outbound) {
+        if (outbound.attempts() + 1 >= eventProperties.getMaxAttempts()) {
+            dropped.increment();
+            log.error("Dropping {} event for order {} to {} after {} attempts",
+                    outbound.event().type(), outbound.event().orderId(), outbound.queue(), outbound.attempts() + 1);
+            return;
+        }
+        if (retries.size() >= eventProperties.getBufferCapacity()) {
+            dropped.increment();
+            log.error("Order event retry backlog full, dropping {} event for order {}",
+                    outbound.event().type(), outbound.event().orderId());
+            return;
+        }
+        retries.add(new Outbound(outbound.queue(), outbound.message(), outbound.event(), outbound.attempts() + 1,
+                System.nanoTime() + retryDelay(outbound.attempts()).toNanos()));
+    }
+
+    /**
+     * retryBackoff after the first failed attempt, doubling with each further one up to maxRetryBackoff
+     */
+    private Duration retryDelay(int previousAttempts) {
+        Duration max = eventProperties.getMaxRetryBackoff();
+        Duration delay = eventProperties.getRetryBackoff();
+        for (int i = 0; i < previousAttempts && delay.compareTo(max) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(max) < 0 ? delay : max;
+    }
+
+    private void enqueue(Outbound outbound) {
+        if (!buffer.offer(outbound)) {
+            dropped.increment();
+            log.error("Order event buffer full, dropping {} event for order {}", outbound.event().type(), outbound.event().orderId());
+        }
+    }
+
+    private Message toMessage(OrderEvent event) throws JsonProcessingException {
+        return MessageBuilder.withBody(objectMapper.writeValueAsBytes(event))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setMessageId(UUID.randomUUID().toString())
+                .setType(event.type().name())
+                .build();
+    }
+
+    /**
+     * @param attempts failed attempts so far
+     * @param retryAt  System.nanoTime() before which a failed message is not retried
+     */
+    private record Outbound(String queue, Message message, OrderEvent event, int attempts, long retryAt) {
+    }
+}
@@ -0,0 +1,163 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Routes order messages that failed to process: back to the orders queue through a delay queue
+ * while attempts remain, otherwise to the dead-letter queue with the failure recorded in headers.
+ * The copy is only treated as rerouted once the broker has confirmed and routed it, so the original
+ * delivery can be acked without risk of losing the order.
+ * Callers either ack the original delivery once handleFailure returns, or use reject to do both.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderFailureHandler {
+
+    public static final String ATTEMPTS_HEADER = "x-order-attempts";
+    public static final String FAILURE_REASON_HEADER = "x-failure-reason";
+    public static final String FAILURE_EXCEPTION_HEADER = "x-failure-exception";
+    public static final String FAILED_AT_HEADER = "x-failed-at";
+
+    private static final int MAX_REASON_LENGTH = 500;
+    private static final int MAX_LOGGED_REASON_LENGTH = 200;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final IngestionProperties ingestionProperties;
+
+    // A poison feed fails every message; one line per interval, with the count, is enough to see it
+    private final LogSampler retryLog = new LogSampler();
+    private final LogSampler deadLetterLog = new LogSampler();
+
+    /**
+     * @param retryable false for failures that cannot succeed on redelivery (e.g. malformed JSON)
+     * @throws AmqpException when the copy could not be published, or was nacked, returned as unroutable
+     *                       or not confirmed within wms.ingestion.retry.confirm-timeout
+     */
+    public void handleFailure(Message message, Exception cause, boolean retryable) {
+        int attempt = attemptOf(message);
+        List<Duration> delays = ingestionProperties.getRetry().backoffDelays();
+
+        if (retryable && attempt <= delays.size()) {
+            Duration delay = delays.get(attempt - 1);
+            Message retry = MessageBuilder.fromMessage(message)
+                    .setHeader(ATTEMPTS_HEADER, attempt + 1)
+                    .build();
+            sendConfirmed(RabbitConfig.ordersRetryQueue(delay), retry);
+            long skipped = retryLog.acquire();
+            if (skipped >= 0) {
+                log.warn("Order message {} failed on attempt {}, retrying in {} ({} more since last report): {}",
+                        describe(message), attempt, delay, skipped, loggedReason(cause));
+            }
+            return;
+        }
+
+        Message deadLetter = MessageBuilder.fromMessage(message)
+                .setHeader(ATTEMPTS_HEADER, attempt)
+                .setHeader(FAILURE_REASON_HEADER, truncate(String.valueOf(cause.getMessage())))
+                .setHeader(FAILURE_EXCEPTION_HEADER, cause.getClass().getName())
+                .setHeader(FAILED_AT_HEADER, Instant.now().toString())
+                .build();
+        sendConfirmed(RabbitConfig.ORDERS_DEAD_LETTER_QUEUE, deadLetter);
+        long skipped = deadLetterLog.acquire();
+        if (skipped >= 0) {
+            log.error("Order message {} dead-lettered after {} attempt(s) ({} more since last report): {}",
+                    describe(message), attempt, skipped, loggedReason(cause));
+        }
+    }
+
+    /**
+     * Hand a failed delivery to {@link #handleFailure}, then ack it.
+     * If its copy is not confirmed by the broker it is requeued instead, so it is not lost.
+     */
+    public void reject(Message message, Channel channel, Exception cause, boolean retryable) throws IOException {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            handleFailure(message, cause, retryable);
+            channel.basicAck(deliveryTag, false);
+        } catch (AmqpException e) {
+            log.error("Could not reroute failed order message {}, requeueing", describe(message), e);
+            channel.basicNack(deliveryTag, false, true);
+        }
+    }
+
+    private void sendConfirmed(String queue, Message message) {
+        CorrelationData correlation = new CorrelationData();
+        rabbitTemplate.send("", queue, message, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(
+                    ingestionProperties.getRetry().getConfirmTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted waiting for the confirm of a publish to " + queue, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("Publish to " + queue + " was not confirmed", e);
+        }
+        if (!confirm.isAck()) {
+            throw new AmqpException("Publish to " + queue + " was nacked: " + confirm.getReason());
+        }
+        // A return arrives before the confirm, so it is known by now
+        if (correlation.getReturned() != null) {
+            throw new AmqpException("Publish to " + queue + " could not be routed: " + correlation.getReturned().getReplyText());
+        }
+    }
+
+    static int attemptOf(Message message) {
+        Object attempts = message.getMessageProperties().getHeader(ATTEMPTS_HEADER);
+        return attempts instanceof Number number ? number.intValue() : 1;
+    }
+
+    /**
+     * Short identification for logs, so failures do not write whole payloads.
+     * The body hash lets a logged failure be matched to the message in the dead-letter queue.
+     */
+    static String describe(Message message) {
+        String messageId = message.getMessageProperties().getMessageId();
+        return messageId != null
+                ? messageId
+                : "#" + message.getMessageProperties().getDeliveryTag() + " (" + message.getBody().length
+                        + " bytes, sha256 " + bodyHash(message.getBody()) + ")";
+    }
+
+    private static String bodyHash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parser errors can quote the offending input; keep only the start of the message
+     */
+    private static String loggedReason(Exception cause) {
+        return LogSampler.abbreviate(String.valueOf(cause.getMessage()), MAX_LOGGED_REASON_LENGTH);
+    }
+
+    private static String truncate(String reason) {
+        return reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+    }
+}
@@ -0,0 +1,54 @@
+package lk.swiftlogistics.wms.messaging;
+
+import lk.swiftlogistics.wms.config.RabbitConfig;
+
+/**
+ * Ingestion lane an order is routed to by its CMS urgency, each with its own queue and consumers
+ * so urgent orders never wait behind a backlog of normal ones.
+ */
+public enum OrderLane {
+
+    HIGH(RabbitConfig.ORDERS_HIGH_QUEUE, "High"),
+    NORMAL(RabbitConfig.ORDERS_NORMAL_QUEUE, "Medium"),
+    LOW(RabbitConfig.ORDERS_LOW_QUEUE, "Low");
+
+    private final String queue;
+    private final String priority;
+
+    OrderLane(String queue, String priority) {
+        this.queue = queue;
+        this.priority = priority;
+    }
+
+    public String queue() {
+        return queue;
+    }
+
+    /**
+     * Order priority stored for orders of this lane
+     */
+    public String priority() {
+        return priority;
+    }
+
+    /**
+     * Metric tag value
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * @param urgency CMS urgency, may be null; unknown values are treated as normal
+     */
+    public static OrderLane forUrgency(String urgency) {
+        if (urgency == null) {
+            return NORMAL;
+        }
+        return switch (urgency.toLowerCase()) {
+            case "urgent", "high" -> HIGH;
+            case "low" -> LOW;
+            default -> NORMAL;
+        };
+    }
+}
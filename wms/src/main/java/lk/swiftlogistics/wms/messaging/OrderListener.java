@@ -1,147 +1,194 @@
 package lk.swiftlogistics.wms.messaging;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lk.swiftlogistics.wms.config.RabbitConfig;
 import lk.swiftlogistics.wms.domain.Order;
 import lk.swiftlogistics.wms.domain.OrderStatus;
-import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.service.OrderIngestionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderListener {
     
-    private final OrderRepository orderRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Normal lane; its consumer count is scaled by IngestionConcurrencyController
+    public static final String LISTENER_ID = "orders";
+    public static final String HIGH_LISTENER_ID = "orders-high";
+    public static final String LOW_LISTENER_ID = "orders-low";
+    public static final String BATCH_DURATION_METRIC = "wms.ingestion.batch.duration";
+    public static final String LANE_LATENCY_METRIC = "wms.ingestion.lane.latency";
+    
+    private static final int MAX_LOGGED_VALUE_LENGTH = 40;
+    
+    private final OrderIngestionService orderIngestionService;
+    private final CmsOrderDecoder cmsOrderDecoder;
+    private final DeliveryDateParser deliveryDateParser;
+    private final OrderFailureHandler orderFailureHandler;
+    private final OrderWriteBehindBuffer writeBehind;
+    private final MeterRegistry meterRegistry;
+    
+    // Per-batch and per-order lines would otherwise be written thousands of times a second at full rate
+    private final LogSampler batchLog = new LogSampler();
+    private final LogSampler deliveryDateLog = new LogSampler();
 
-    @RabbitListener(queues = RabbitConfig.ORDERS_QUEUE)
-    public void handleOrder(String orderMessage) {
+    @RabbitListener(id = LISTENER_ID, queues = RabbitConfig.ORDERS_NORMAL_QUEUE, autoStartup = "${wms.ingestion.auto-startup:true}")
+    public void handleOrders(List<Message> messages, Channel channel) throws IOException {
+        ingest(OrderLane.NORMAL, messages, channel);
+    }
+    
+    @RabbitListener(id = HIGH_LISTENER_ID, queues = RabbitConfig.ORDERS_HIGH_QUEUE,
+            containerFactory = "expressListenerContainerFactory",
+            concurrency = "${wms.ingestion.lanes.high-consumers:2}",
+            autoStartup = "${wms.ingestion.auto-startup:true}")
+    public void handleHighPriorityOrders(List<Message> messages, Channel channel) throws IOException {
+        ingest(OrderLane.HIGH, messages, channel);
+    }
+    
+    @RabbitListener(id = LOW_LISTENER_ID, queues = RabbitConfig.ORDERS_LOW_QUEUE,
+            concurrency = "${wms.ingestion.lanes.low-consumers:1}",
+            autoStartup = "${wms.ingestion.auto-startup:true}")
+    public void handleLowPriorityOrders(List<Message> messages, Channel channel) throws IOException {
+        ingest(OrderLane.LOW, messages, channel);
+    }
+    
+    private void ingest(OrderLane lane, List<Message> messages, Channel channel) throws IOException {
+        log.debug("Received batch of {} {} order messages", messages.size(), lane.tag());
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            log.info("Received order message: {}", orderMessage);
-            
-            JsonNode orderJson = objectMapper.readTree(orderMessage);
-            
-            Order order = new Order();
-            
-            // Handle tracking number from CMS
-            String trackingNumber = orderJson.has("trackingNumber") 
-                ? orderJson.get("trackingNumber").asText() 
-                : orderJson.has("orderId") 
-                    ? orderJson.get("orderId").asText()
-                    : "ORD-" + System.currentTimeMillis();
-            
-            order.setClientRef(trackingNumber);
-            
-            // Extract customer name from CMS format
-            String customerName = "Unknown Customer";
-            if (orderJson.has("pickup") && orderJson.get("pickup").has("contact")) {
-                customerName = orderJson.get("pickup").get("contact").asText();
-            } else if (orderJson.has("source") && orderJson.get("source").has("contact")) {
-                customerName = orderJson.get("source").get("contact").asText();
-            }
-            order.setCustomerName(customerName);
-            
-            // Extract delivery address from CMS format
-            String deliveryAddress = "No address provided";
-            if (orderJson.has("source") && orderJson.get("source").has("address")) {
-                deliveryAddress = orderJson.get("source").get("address").asText();
-            } else if (orderJson.has("pickup") && orderJson.get("pickup").has("address")) {
-                deliveryAddress = orderJson.get("pickup").get("address").asText();
-            }
-            order.setDeliveryAddress(deliveryAddress);
-            
-            // Extract package weight and description
-            String packageInfo = "";
-            if (orderJson.has("package")) {
-                JsonNode packageNode = orderJson.get("package");
-                if (packageNode.has("weight") && packageNode.has("description")) {
-                    packageInfo = packageNode.get("weight").asText() + "kg " + 
-                                 packageNode.get("description").asText();
-                } else if (packageNode.has("packageInfo")) {
-                    packageInfo = packageNode.get("packageInfo").asText();
-                }
+            processBatch(lane, messages, channel);
+        } finally {
+            sample.stop(meterRegistry.timer(BATCH_DURATION_METRIC, "lane", lane.tag()));
+        }
+    }
+    
+    private void processBatch(OrderLane lane, List<Message> messages, Channel channel) throws IOException {
+        List<Message> accepted = new ArrayList<>(messages.size());
+        List<Order> orders = new ArrayList<>(messages.size());
+        
+        for (Message message : messages) {
+            try {
+                orders.add(toOrder(message));
+                accepted.add(message);
+            } catch (Exception e) {
+                // Malformed payloads will fail the same way on every redelivery
+                orderFailureHandler.reject(message, channel, e, false);
             }
-            order.setPackageInfo(packageInfo);
-            
-            // Parse delivery date with multiple format support
-            LocalDateTime deliveryDate = LocalDateTime.now().plusDays(1);
-            
-            if (orderJson.has("service") && orderJson.get("service").has("estimatedDelivery")) {
-                String deliveryDateStr = orderJson.get("service").get("estimatedDelivery").asText();
-                deliveryDate = parseDeliveryDate(deliveryDateStr);
-            } else if (orderJson.has("estimatedDelivery")) {
-                String deliveryDateStr = orderJson.get("estimatedDelivery").asText();
-                deliveryDate = parseDeliveryDate(deliveryDateStr);
+        }
+        
+        if (accepted.isEmpty()) {
+            return;
+        }
+        
+        if (lane != OrderLane.HIGH && writeBehind.isEnabled()) {
+            // Blocks while the buffer is full, which holds back this consumer and, through prefetch, the broker
+            for (int i = 0; i < orders.size(); i++) {
+                writeBehind.put(new OrderWriteBehindBuffer.PendingOrder(lane, orders.get(i), accepted.get(i), channel));
             }
-            
-            order.setDeliveryDate(deliveryDate);
-            order.setStatus(OrderStatus.RECEIVED);
-            
-            // Extract priority from urgency field
-            String priority = "Medium";
-            if (orderJson.has("service") && orderJson.get("service").has("urgency")) {
-                String urgency = orderJson.get("service").get("urgency").asText();
-                priority = mapUrgencyToPriority(urgency);
-            } else if (orderJson.has("urgency")) {
-                String urgency = orderJson.get("urgency").asText();
-                priority = mapUrgencyToPriority(urgency);
+            return;
+        }
+        
+        try {
+            OrderIngestionService.BatchResult result = orderIngestionService.saveBatch(orders);
+            // Acknowledge the whole batch only once its transaction has committed
+            channel.basicAck(deliveryTag(accepted.get(accepted.size() - 1)), true);
+            accepted.forEach(message -> recordLatency(meterRegistry, lane, message));
+            long skipped = batchLog.acquire();
+            if (skipped >= 0) {
+                log.info("Batch of {} orders processed and saved successfully ({} duplicates dropped, {} batches since last report)",
+                        result.inserted().size(), result.duplicates(), skipped);
             }
-            order.setPriority(priority);
-            
-            orderRepository.save(order);
-            
-            log.info("Order {} processed and saved successfully with priority {}", 
-                    order.getClientRef(), order.getPriority());
-            
         } catch (Exception e) {
-            log.error("Failed to process order message: {}", orderMessage, e);
-            throw new RuntimeException("Order processing failed", e);
+            log.warn("Batch insert of {} orders failed, retrying one by one: {}", orders.size(), e.getMessage());
+            saveIndividually(lane, accepted, channel);
         }
     }
     
-    private LocalDateTime parseDeliveryDate(String deliveryDateStr) {
-        try {
-            // Try ISO format first
-            return LocalDateTime.parse(deliveryDateStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        } catch (DateTimeParseException e1) {
+    /**
+     * Fallback when a batch fails to commit, so one bad order does not hold back the rest
+     */
+    private void saveIndividually(OrderLane lane, List<Message> messages, Channel channel) throws IOException {
+        for (Message message : messages) {
             try {
-                // Try ISO date format (add default time)
-                return LocalDateTime.parse(deliveryDateStr + "T09:00:00", DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            } catch (DateTimeParseException e2) {
-                try {
-                    // Try ISO instant format and convert
-                    return LocalDateTime.parse(deliveryDateStr.replace("Z", ""), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                } catch (DateTimeParseException e3) {
-                    // Default to tomorrow 9 AM if parsing fails
-                    log.warn("Could not parse delivery date '{}', using default", deliveryDateStr);
-                    return LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
-                }
+                Order order = toOrder(message);
+                orderIngestionService.saveBatch(List.of(order));
+                channel.basicAck(deliveryTag(message), false);
+                recordLatency(meterRegistry, lane, message);
+                log.debug("Order {} processed and saved successfully with priority {}", 
+                        order.getClientRef(), order.getPriority());
+            } catch (Exception e) {
+                orderFailureHandler.reject(message, channel, e, true);
             }
         }
     }
     
-    private String mapUrgencyToPriority(String urgency) {
-        switch (urgency.toLowerCase()) {
-            case "urgent":
-                return "High";
-            case "high":
-                return "High";
-            case "normal":
-            case "medium":
-                return "Medium";
-            case "low":
-                return "Low";
-            default:
-                return "Medium";
+    /**
+     * Time from entering the lane to being committed; messages that skipped triage are not recorded
+     */
+    static void recordLatency(MeterRegistry meterRegistry, OrderLane lane, Message message) {
+        Object enteredAt = message.getMessageProperties().getHeader(OrderTriageListener.LANE_ENTERED_AT_HEADER);
+        if (enteredAt instanceof Number millis) {
+            Timer.builder(LANE_LATENCY_METRIC)
+                    .description("Time from an order entering its lane to its batch committing")
+                    .tag("lane", lane.tag())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - millis.longValue())));
+        }
+    }
+    
+    private Order toOrder(Message message) throws IOException {
+        CmsOrderMessage cmsOrder = cmsOrderDecoder.decode(message.getBody());
+        
+        Order order = new Order();
+        
+        // Tracking number from CMS, or a generated reference when the CMS sent none
+        order.setClientRef(cmsOrder.clientRef() != null ? cmsOrder.clientRef() : "ORD-" + UUID.randomUUID());
+        order.setCustomerName(cmsOrder.customerName() != null ? cmsOrder.customerName() : "Unknown Customer");
+        order.setDeliveryAddress(cmsOrder.deliveryAddress() != null ? cmsOrder.deliveryAddress() : "No address provided");
+        order.setPackageInfo(cmsOrder.packageInfo() != null ? cmsOrder.packageInfo() : "");
+        order.setWeight(cmsOrder.weight());
+        
+        // Parse delivery date with multiple format support
+        order.setDeliveryDate(cmsOrder.estimatedDelivery() != null 
+                ? parseDeliveryDate(cmsOrder.estimatedDelivery()) 
+                : LocalDateTime.now().plusDays(1));
+        order.setStatus(OrderStatus.RECEIVED);
+        
+        // Extract priority from urgency field
+        order.setPriority(OrderLane.forUrgency(cmsOrder.urgency()).priority());
+        
+        return order;
+    }
+    
+    private static long deliveryTag(Message message) {
+        return message.getMessageProperties().getDeliveryTag();
+    }
+    
+    private LocalDateTime parseDeliveryDate(String deliveryDateStr) {
+        LocalDateTime deliveryDate = deliveryDateParser.parse(deliveryDateStr);
+        if (deliveryDate == null) {
+            // Default to tomorrow 9 AM if parsing fails
+            long skipped = deliveryDateLog.acquire();
+            if (skipped >= 0) {
+                log.warn("Could not parse delivery date '{}', using default ({} more since last report)",
+                        LogSampler.abbreviate(deliveryDateStr, MAX_LOGGED_VALUE_LENGTH), skipped);
+            }
+            return LocalDateTime.now().plusDays(1).withHour(DeliveryDateParser.DEFAULT_DELIVERY_HOUR).withMinute(0).withSecond(0).withNano(0);
         }
+        return deliveryDate;
     }
 }
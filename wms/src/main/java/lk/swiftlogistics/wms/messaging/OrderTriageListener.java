@@ -0,0 +1,110 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves CMS orders from the orders queue into their urgency lane.
+ *
+ * Triage only decodes the payload, so it keeps up with bursts that the database cannot; the backlog
+ * builds up in the lanes instead, where the high lane has its own consumers. Payloads that cannot
+ * be decoded go to the normal lane, whose listener dead-letters them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderTriageListener {
+
+    public static final String LISTENER_ID = "orders-triage";
+
+    /**
+     * Epoch millis at which the order entered its lane, for the per-lane latency metric
+     */
+    public static final String LANE_ENTERED_AT_HEADER = "x-lane-entered-at";
+
+    private final CmsOrderDecoder cmsOrderDecoder;
+    private final RabbitTemplate rabbitTemplate;
+    private final IngestionProperties ingestionProperties;
+    private final MeterRegistry meterRegistry;
+
+    @RabbitListener(id = LISTENER_ID, queues = RabbitConfig.ORDERS_QUEUE,
+            containerFactory = "expressListenerContainerFactory",
+            concurrency = "${wms.ingestion.lanes.triage-consumers:2}",
+            autoStartup = "${wms.ingestion.auto-startup:true}")
+    public void triage(List<Message> messages, Channel channel) throws IOException {
+        long enteredAt = System.currentTimeMillis();
+        List<CorrelationData> confirms = new ArrayList<>(messages.size());
+        try {
+            for (Message message : messages) {
+                OrderLane lane = laneOf(message);
+                Message routed = MessageBuilder.fromMessage(message)
+                        .setHeader(LANE_ENTERED_AT_HEADER, enteredAt)
+                        .build();
+                CorrelationData correlation = new CorrelationData();
+                rabbitTemplate.send("", lane.queue(), routed, correlation);
+                confirms.add(correlation);
+                meterRegistry.counter("wms.ingestion.lane.triaged", "lane", lane.tag()).increment();
+            }
+        } catch (AmqpException e) {
+            log.warn("Could not route {} order messages to their lanes, requeueing: {}", messages.size(), e.getMessage());
+            channel.basicNack(lastDeliveryTag(messages), true, true);
+            return;
+        }
+
+        // Messages already in a lane are ingested a second time after a requeue; the duplicate check drops them
+        if (allConfirmed(confirms)) {
+            channel.basicAck(lastDeliveryTag(messages), true);
+        } else {
+            log.warn("Lane publishes for {} order messages were not confirmed, requeueing", messages.size());
+            channel.basicNack(lastDeliveryTag(messages), true, true);
+        }
+    }
+
+    private OrderLane laneOf(Message message) {
+        try {
+            return OrderLane.forUrgency(cmsOrderDecoder.decode(message.getBody()).urgency());
+        } catch (IOException e) {
+            return OrderLane.NORMAL;
+        }
+    }
+
+    private boolean allConfirmed(List<CorrelationData> confirms) {
+        long deadline = System.nanoTime() + ingestionProperties.getLanes().getConfirmTimeout().toNanos();
+        for (CorrelationData correlation : confirms) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS).isAck()) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException | TimeoutException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long lastDeliveryTag(List<Message> messages) {
+        return messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
+    }
+}
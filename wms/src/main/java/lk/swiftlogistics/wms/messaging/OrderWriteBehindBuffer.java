@@ -0,0 +1,220 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.service.OrderIngestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer between the lane consumers and the database, drained by a single writer thread.
+ *
+ * Consumers decode and put; the writer takes whatever has accumulated (up to groupSize) and commits
+ * it in one transaction, so under load each commit carries every order that arrived during the
+ * previous one and the database sees one steady writer instead of competing consumers.
+ * Deliveries are acked only after the commit containing them. Orders from one channel are committed
+ * in delivery order, so a single multiple-ack per channel covers a group.
+ *
+ * A full buffer blocks the consumers; their unacked prefetch then stops the broker delivering more.
+ */
+@Component
+@Slf4j
+public class OrderWriteBehindBuffer {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final OrderIngestionService orderIngestionService;
+    private final OrderFailureHandler orderFailureHandler;
+    private final MeterRegistry meterRegistry;
+    private final IngestionProperties.WriteBehind settings;
+    private final BlockingQueue<PendingOrder> buffer;
+    private final Thread writer;
+    private final Counter blocked;
+    private final Timer commitTimer;
+    private final DistributionSummary groupSizes;
+    private final LogSampler groupLog = new LogSampler();
+
+    private volatile boolean running = true;
+
+    public OrderWriteBehindBuffer(OrderIngestionService orderIngestionService,
+                                  OrderFailureHandler orderFailureHandler,
+                                  MeterRegistry meterRegistry,
+                                  IngestionProperties ingestionProperties) {
+        this.orderIngestionService = orderIngestionService;
+        this.orderFailureHandler = orderFailureHandler;
+        this.meterRegistry = meterRegistry;
+        this.settings = ingestionProperties.getWriteBehind();
+        this.buffer = new ArrayBlockingQueue<>(settings.getCapacity());
+        this.writer = new Thread(this::drain, "orders-writer");
+        this.blocked = Counter.builder("wms.ingestion.buffer.blocked")
+                .description("Times a consumer found the write-behind buffer full and had to wait")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("wms.ingestion.group.commit")
+                .description("Time to commit one group of buffered orders")
+                .register(meterRegistry);
+        this.groupSizes = DistributionSummary.builder("wms.ingestion.group.size")
+                .description("Orders per group commit")
+                .register(meterRegistry);
+        Gauge.builder("wms.ingestion.buffer.size", buffer, BlockingQueue::size)
+                .description("Orders waiting in the write-behind buffer")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startWriter() {
+        if (settings.isEnabled()) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Listener containers are stopped before beans are destroyed, so nothing is added while the rest drains
+     */
+    @PreDestroy
+    void stopWriter() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Queue an order for the next group commit, waiting while the buffer is full
+     */
+    public void put(PendingOrder pending) {
+        try {
+            if (!buffer.offer(pending)) {
+                blocked.increment();
+                buffer.put(pending);
+            }
+        } catch (InterruptedException e) {
+            // Abandon the rest of the listener batch; it stays unacked and is redelivered once the channel closes
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind buffer", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Orders waiting for the writer, not counting the group being committed
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    private void drain() {
+        List<PendingOrder> group = new ArrayList<>(settings.getGroupSize());
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingOrder first = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                buffer.drainTo(group, settings.getGroupSize() - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Never let the writer die; anything not acked here is redelivered by the broker
+                log.error("Group commit of {} orders failed unexpectedly", group.size(), e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> group) {
+        List<Order> orders = new ArrayList<>(group.size());
+        group.forEach(pending -> orders.add(pending.order()));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OrderIngestionService.BatchResult result;
+        try {
+            result = orderIngestionService.saveBatch(orders);
+        } catch (Exception e) {
+            log.warn("Group commit of {} orders failed, retrying one by one: {}", group.size(), e.getMessage());
+            commitIndividually(group);
+            return;
+        }
+        sample.stop(commitTimer);
+        groupSizes.record(group.size());
+        // Committed from here on: an ack that fails must never lead back to committing or acking again
+        ackCommitted(group);
+        long skipped = groupLog.acquire();
+        if (skipped >= 0) {
+            log.info("Group of {} orders committed ({} duplicates dropped, {} groups since last report)",
+                    result.inserted().size(), result.duplicates(), skipped);
+        }
+    }
+
+    /**
+     * Fallback when a group fails to commit, so one bad order does not hold back the rest
+     */
+    private void commitIndividually(List<PendingOrder> group) {
+        for (PendingOrder pending : group) {
+            try {
+                orderIngestionService.saveBatch(List.of(pending.order()));
+            } catch (Exception e) {
+                try {
+                    orderFailureHandler.reject(pending.message(), pending.channel(), e, true);
+                } catch (IOException | RuntimeException ackFailure) {
+                    log.warn("Could not ack failed order message {}: {}",
+                            OrderFailureHandler.describe(pending.message()), ackFailure.getMessage());
+                }
+                continue;
+            }
+            ack(pending.channel(), pending.deliveryTag(), false);
+            OrderListener.recordLatency(meterRegistry, pending.lane(), pending.message());
+        }
+    }
+
+    private void ackCommitted(List<PendingOrder> group) {
+        Map<Channel, Long> lastTags = new LinkedHashMap<>();
+        for (PendingOrder pending : group) {
+            lastTags.merge(pending.channel(), pending.deliveryTag(), Math::max);
+            OrderListener.recordLatency(meterRegistry, pending.lane(), pending.message());
+        }
+        lastTags.forEach((channel, lastTag) -> ack(channel, lastTag, true));
+    }
+
+    /**
+     * Ack committed orders; a channel closed meanwhile (consumer scale-down, connection loss) throws
+     * unchecked exceptions as well as IOException, and must not stop the other channels being acked
+     */
+    private static void ack(Channel channel, long deliveryTag, boolean multiple) {
+        try {
+            channel.basicAck(deliveryTag, multiple);
+        } catch (IOException | RuntimeException e) {
+            // The orders are committed; their redelivery is dropped by the duplicate check
+            log.warn("Could not ack committed orders up to {}: {}", deliveryTag, e.getMessage());
+        }
+    }
+
+    public record PendingOrder(OrderLane lane, Order order, Message message, Channel channel) {
+
+        long deliveryTag() {
+            return message.getMessageProperties().getDeliveryTag();
+        }
+    }
+}
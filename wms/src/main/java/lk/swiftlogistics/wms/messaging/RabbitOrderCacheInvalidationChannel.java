@@ -0,0 +1,60 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lk.swiftlogistics.wms.service.OrderCacheInvalidation;
+import lk.swiftlogistics.wms.service.OrderCacheInvalidationChannel;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * Broadcasts order cache invalidations to every WMS instance through a fanout exchange.
+ * Each instance reads them from its own temporary queue (see OrderCacheInvalidationListener).
+ * Messages are transient and unconfirmed: one that is lost leaves other instances stale only until the cache TTL.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "rabbit")
+public class RabbitOrderCacheInvalidationChannel implements OrderCacheInvalidationChannel {
+
+    static final String ORIGIN_HEADER = "x-origin";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public RabbitOrderCacheInvalidationChannel(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(OrderCacheInvalidation invalidation) {
+        Message message;
+        try {
+            message = MessageBuilder.withBody(objectMapper.writeValueAsBytes(invalidation))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT)
+                    .setHeader(ORIGIN_HEADER, instanceId)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        rabbitTemplate.send(RabbitConfig.ORDER_CACHE_EXCHANGE, "", message);
+    }
+
+    /**
+     * Identifies this instance's own broadcasts, which it has already applied
+     */
+    boolean isOwn(Message message) {
+        return instanceId.equals(message.getMessageProperties().getHeader(ORIGIN_HEADER));
+    }
+}
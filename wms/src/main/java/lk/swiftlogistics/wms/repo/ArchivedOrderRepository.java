@@ -0,0 +1,69 @@
+package lk.swiftlogistics.wms.repo;
+
+import jakarta.persistence.QueryHint;
+import lk.swiftlogistics.wms.domain.ArchivedOrder;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * History lookups in the order archive, returning the same OrderSummary rows as OrderRepository.
+ * The archive is partitioned by delivery month, so the delivery date listings only read the months in range.
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    String SUMMARY_FROM = "SELECT new lk.swiftlogistics.wms.repo.OrderSummary("
+            + "a.id, a.clientRef, COALESCE(a.trackingNumber, a.clientRef), a.customerName, a.deliveryAddress,"
+            + " a.deliveryDate, a.status, a.priority, a.packageInfo, a.weight, a.warehouseLocation,"
+            + " a.createdAt, a.updatedAt, a.driverId, d.name)"
+            + " FROM ArchivedOrder a LEFT JOIN Driver d ON d.id = a.driverId";
+
+    // The redundant lower bound lets the planner prune partitions before afterDate
+    String BY_DELIVERY_DATE_AFTER = SUMMARY_FROM
+            + " WHERE a.deliveryDate >= :afterDate AND a.deliveryDate <= :endDate"
+            + " AND (a.deliveryDate > :afterDate OR (a.deliveryDate = :afterDate AND a.id > :afterId))"
+            + " ORDER BY a.deliveryDate, a.id";
+
+    @Query(SUMMARY_FROM + " WHERE a.id = :id")
+    Optional<OrderSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_FROM + " WHERE a.clientRef = :clientRef")
+    Optional<OrderSummary> findSummaryByClientRef(@Param("clientRef") String clientRef);
+
+    long countByDriverId(Long driverId);
+
+    /**
+     * Orders archived so far and how many of them were High priority, from the per-month totals
+     */
+    @Query("SELECT COALESCE(SUM(m.orders), 0) AS orders, COALESCE(SUM(m.highPriority), 0) AS highPriority"
+            + " FROM ArchivedOrderMonth m")
+    ArchivedCount countArchived();
+
+    interface ArchivedCount {
+        long getOrders();
+
+        long getHighPriority();
+    }
+
+    @Query(BY_DELIVERY_DATE_AFTER)
+    List<OrderSummary> findByDeliveryDateAfter(@Param("endDate") LocalDateTime endDate,
+                                               @Param("afterDate") LocalDateTime afterDate,
+                                               @Param("afterId") long afterId,
+                                               Limit limit);
+
+    @Query(BY_DELIVERY_DATE_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamByDeliveryDateAfter(@Param("endDate") LocalDateTime endDate,
+                                                   @Param("afterDate") LocalDateTime afterDate,
+                                                   @Param("afterId") long afterId);
+}
@@ -1,9 +1,13 @@
 package lk.swiftlogistics.wms.repo;
 
 import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +21,19 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
     List<Driver> findByAvailable(boolean available);
     
     List<Driver> findByNameContainingIgnoreCase(String name);
+
+    long countByAvailable(boolean available);
+
+    /**
+     * Every driver with their active order count, in one query
+     */
+    @Query("""
+            SELECT new lk.swiftlogistics.wms.repo.DriverSummary(
+                       d.id, d.name, d.licenseNumber, d.phoneNumber, d.email, d.available, COUNT(o))
+            FROM Driver d
+            LEFT JOIN d.assignedOrders o ON o.status IN :activeStatuses
+            GROUP BY d.id, d.name, d.licenseNumber, d.phoneNumber, d.email, d.available
+            ORDER BY d.id
+            """)
+    List<DriverSummary> findDriverSummaries(@Param("activeStatuses") Collection<OrderStatus> activeStatuses);
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package lk.swiftlogistics.wms.repo;
+
+/**
+ * A driver with the number of orders still assigned to them that are not yet delivered
+ */
+public record DriverSummary(Long id, String name, String licenseNumber, String phoneNumber, String email,
+                            boolean available, long activeOrders) {
+}
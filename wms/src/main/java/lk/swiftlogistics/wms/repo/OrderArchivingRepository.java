@@ -0,0 +1,89 @@
+package lk.swiftlogistics.wms.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Plain JDBC moves of delivered orders from orders into the partitioned orders_archive.
+ * PostgreSQL only: a move is a single DELETE ... RETURNING feeding an INSERT.
+ */
+@Repository
+public class OrderArchivingRepository {
+
+    private static final String COLUMNS = """
+            id, client_ref, customer_name, delivery_address, delivery_date, status, driver_id,
+            created_at, updated_at, package_info, priority, tracking_number, warehouse_location, weight""";
+
+    // SKIP LOCKED: an order being edited right now is left for the next run
+    private static final String MOVE_DELIVERED = """
+            WITH moved AS (
+                DELETE FROM orders
+                WHERE id IN (SELECT id FROM orders
+                             WHERE status = 'DELIVERED' AND delivery_date >= ? AND delivery_date < ?
+                             ORDER BY delivery_date, id
+                             LIMIT ?
+                             FOR UPDATE SKIP LOCKED)
+                RETURNING %1$s),
+            archived AS (
+                INSERT INTO orders_archive (%1$s, archived_at)
+                SELECT %1$s, ? FROM moved
+                RETURNING priority)
+            SELECT count(*), count(*) FILTER (WHERE priority = 'High') FROM archived
+            """.formatted(COLUMNS);
+
+    private static final String ADD_TO_MONTH = """
+            INSERT INTO orders_archive_months (delivery_month, orders, high_priority, archived_at) VALUES (?, ?, ?, ?)
+            ON CONFLICT (delivery_month) DO UPDATE
+            SET orders = orders_archive_months.orders + EXCLUDED.orders,
+                high_priority = orders_archive_months.high_priority + EXCLUDED.high_priority,
+                archived_at = EXCLUDED.archived_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderArchivingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Delivery date of the oldest delivered order still in orders that is due before the cutoff
+     */
+    public Optional<LocalDateTime> oldestDeliveredBefore(LocalDateTime cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT min(delivery_date) FROM orders WHERE status = 'DELIVERED' AND delivery_date < ?",
+                Timestamp.class, Timestamp.valueOf(cutoff));
+        return Optional.ofNullable(oldest).map(Timestamp::toLocalDateTime);
+    }
+
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF orders_archive FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    /**
+     * Move up to limit delivered orders due in [from, to) into the archive
+     *
+     */
+    public Moved moveDelivered(LocalDateTime from, LocalDateTime to, int limit, LocalDateTime archivedAt) {
+        return jdbcTemplate.queryForObject(MOVE_DELIVERED, (rs, row) -> new Moved(rs.getInt(1), rs.getInt(2)),
+                Timestamp.valueOf(from), Timestamp.valueOf(to), limit, Timestamp.valueOf(archivedAt));
+    }
+
+    public void addToMonth(YearMonth month, Moved moved, LocalDateTime archivedAt) {
+        jdbcTemplate.update(ADD_TO_MONTH, Date.valueOf(month.atDay(1)), moved.orders(), moved.highPriority(),
+                Timestamp.valueOf(archivedAt));
+    }
+
+    static String partitionName(YearMonth month) {
+        return "orders_archive_y%04dm%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    public record Moved(int orders, int highPriority) {
+    }
+}
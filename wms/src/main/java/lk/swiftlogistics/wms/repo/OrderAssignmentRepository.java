@@ -0,0 +1,92 @@
+package lk.swiftlogistics.wms.repo;
+
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Plain JDBC bulk assignment: one conditional UPDATE takes every listed order that is still RECEIVED and
+ * unassigned, however many ids there are, and returns the rows it changed. The ids are bound as a single
+ * array parameter, so the statement is the same for 10 ids or 10,000.
+ */
+@Repository
+public class OrderAssignmentRepository {
+
+    // The WHERE clause is the eligibility check. A row another transaction is changing is waited for and
+    // checked again once that commits, so an order cannot be taken twice. The version bump makes JPA
+    // writers holding the old row fail their optimistic lock.
+    private static final String ASSIGN = """
+            UPDATE orders SET driver_id = ?, status = 'READY_TO_DISPATCH', updated_at = ?, version = version + 1
+            WHERE id = ANY(?) AND status = 'RECEIVED' AND driver_id IS NULL
+            """;
+
+    private static final String STATES = "SELECT id, status, driver_id FROM orders WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String assignSql;
+
+    public OrderAssignmentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // H2 (offline benchmarks and tests) has no UPDATE ... RETURNING, but reads the changed rows back the same way
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        this.assignSql = "H2".equals(product)
+                ? "SELECT " + OrderRows.RETURNED_COLUMNS + " FROM FINAL TABLE (" + ASSIGN + ")"
+                : ASSIGN + "RETURNING " + OrderRows.RETURNED_COLUMNS;
+    }
+
+    /**
+     * Assign the driver to those of the orders that are RECEIVED and have no driver, moving them to READY_TO_DISPATCH
+     *
+     * @return the assigned orders, by id, as detached entities carrying the given driver
+     */
+    public List<Order> assignUnassigned(Collection<Long> orderIds, Driver driver, LocalDateTime updatedAt) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<Order> assigned = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(assignSql);
+            ps.setLong(1, driver.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(updatedAt));
+            ps.setArray(3, connection.createArrayOf("bigint", orderIds.toArray()));
+            return ps;
+        }, (rs, row) -> OrderRows.map(rs, OrderStatus.READY_TO_DISPATCH, driver));
+        assigned.sort(Comparator.comparing(Order::getId));
+        return assigned;
+    }
+
+    /**
+     * Current status and assignment of the given orders; ids with no order are left out
+     */
+    public List<AssignmentState> findAssignmentStates(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STATES);
+            ps.setArray(1, connection.createArrayOf("bigint", orderIds.toArray()));
+            return ps;
+        }, (rs, row) -> new AssignmentState(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)),
+                rs.getObject(3, Long.class)));
+    }
+
+    /**
+     * @param driverId null while the order is unassigned
+     */
+    public record AssignmentState(Long id, OrderStatus status, Long driverId) {
+
+        public boolean assigned() {
+            return driverId != null;
+        }
+    }
+}
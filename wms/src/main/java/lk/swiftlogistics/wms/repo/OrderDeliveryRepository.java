@@ -0,0 +1,137 @@
+package lk.swiftlogistics.wms.repo;
+
+import lk.swiftlogistics.wms.domain.DeliveryConfirmation;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC batch delivery confirmation: one conditional UPDATE delivers every listed order the driver
+ * still has out for delivery, and one batch INSERT records the idempotency keys they were confirmed with
+ */
+@Repository
+public class OrderDeliveryRepository {
+
+    // As with assignment, the WHERE clause is the eligibility check and the version bump fails JPA
+    // writers holding the old row
+    private static final String DELIVER = """
+            UPDATE orders SET status = 'DELIVERED', updated_at = ?, version = version + 1
+            WHERE id = ANY(?) AND driver_id = ? AND status = 'READY_TO_DISPATCH'
+            """;
+
+    private static final String CONFIRMED_ORDERS =
+            "SELECT idempotency_key, order_id FROM delivery_confirmations WHERE idempotency_key = ANY(?)";
+
+    private static final String INSERT_CONFIRMATION = """
+            INSERT INTO delivery_confirmations (idempotency_key, order_id, driver_id, delivery_notes, delivery_proof,
+                                                confirmed_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String deliverSql;
+    private final String insertConfirmationSql;
+
+    public OrderDeliveryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // H2 (offline benchmarks and tests): FINAL TABLE for RETURNING, and only the target-less ON CONFLICT
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        boolean h2 = "H2".equals(product);
+        this.deliverSql = h2
+                ? "SELECT " + OrderRows.RETURNED_COLUMNS + " FROM FINAL TABLE (" + DELIVER + ")"
+                : DELIVER + "RETURNING " + OrderRows.RETURNED_COLUMNS;
+        this.insertConfirmationSql = INSERT_CONFIRMATION + (h2
+                ? "ON CONFLICT DO NOTHING"
+                : "ON CONFLICT (idempotency_key) DO NOTHING");
+    }
+
+    /**
+     * Move those of the orders that are assigned to the driver and READY_TO_DISPATCH to DELIVERED
+     *
+     * @return the delivered orders, by id, as detached entities carrying the given driver
+     */
+    public List<Order> deliverAssigned(Collection<Long> orderIds, Driver driver, LocalDateTime updatedAt) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<Order> delivered = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(deliverSql);
+            ps.setTimestamp(1, Timestamp.valueOf(updatedAt));
+            ps.setArray(2, connection.createArrayOf("bigint", orderIds.toArray()));
+            ps.setLong(3, driver.getId());
+            return ps;
+        }, (rs, row) -> OrderRows.map(rs, OrderStatus.DELIVERED, driver));
+        delivered.sort(Comparator.comparing(Order::getId));
+        return delivered;
+    }
+
+    /**
+     * @return the order each of the keys already confirmed; keys never used are left out
+     */
+    public Map<String, Long> findConfirmedOrders(Collection<String> idempotencyKeys) {
+        Map<String, Long> confirmed = new HashMap<>();
+        if (idempotencyKeys.isEmpty()) {
+            return confirmed;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CONFIRMED_ORDERS);
+            ps.setArray(1, connection.createArrayOf("varchar", idempotencyKeys.toArray()));
+            return ps;
+        }, rs -> {
+            confirmed.put(rs.getString(1), rs.getLong(2));
+        });
+        return confirmed;
+    }
+
+    /**
+     * Record the confirmations in one JDBC batch, skipping any whose key is already taken
+     *
+     * @return the confirmations whose key was already taken, so were not recorded
+     */
+    public List<DeliveryConfirmation> insertIgnoringTakenKeys(List<DeliveryConfirmation> confirmations) {
+        if (confirmations.isEmpty()) {
+            return List.of();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(insertConfirmationSql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DeliveryConfirmation confirmation = confirmations.get(i);
+                ps.setString(1, confirmation.getIdempotencyKey());
+                ps.setLong(2, confirmation.getOrderId());
+                ps.setLong(3, confirmation.getDriverId());
+                ps.setString(4, confirmation.getDeliveryNotes());
+                ps.setString(5, confirmation.getDeliveryProof());
+                ps.setTimestamp(6, Timestamp.valueOf(confirmation.getConfirmedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return confirmations.size();
+            }
+        });
+
+        List<DeliveryConfirmation> skipped = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                skipped.add(confirmations.get(i));
+            }
+        }
+        return skipped;
+    }
+}
@@ -1,35 +1,167 @@
 package lk.swiftlogistics.wms.repo;
 
+import jakarta.persistence.QueryHint;
 import lk.swiftlogistics.wms.domain.Order;
 import lk.swiftlogistics.wms.domain.OrderStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Order listings are keyset-paginated: each query continues after the given position and is
+ * read either a page at a time (with a Limit) or as a Stream over a database cursor.
+ * They select OrderSummary rows rather than entities, so nothing is hydrated or tracked per row.
+ * Streams must be consumed inside a transaction; Postgres only uses a cursor when autocommit is off.
+ */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    
+
+    String SUMMARY_FROM = OrderSummary.SELECT + " FROM Order o LEFT JOIN o.assignedDriver d";
+
+    String ALL_AFTER = SUMMARY_FROM
+            + " WHERE o.id > :afterId ORDER BY o.id";
+
+    String BY_STATUS_AFTER = SUMMARY_FROM
+            + " WHERE o.status = :status AND o.id > :afterId ORDER BY o.id";
+
+    String UNASSIGNED_AFTER = SUMMARY_FROM
+            + " WHERE o.assignedDriver IS NULL AND o.id > :afterId ORDER BY o.id";
+
+    String UNASSIGNED_IN_STATUSES = SUMMARY_FROM
+            + " WHERE o.assignedDriver IS NULL AND o.status IN :statuses ORDER BY o.id";
+
+    String BY_DRIVER_AFTER = SUMMARY_FROM
+            + " WHERE o.assignedDriver.id = :driverId AND o.id > :afterId ORDER BY o.id";
+
+    String BY_DELIVERY_DATE_AFTER = SUMMARY_FROM
+            + " WHERE o.deliveryDate <= :endDate"
+            + " AND (o.deliveryDate > :afterDate OR (o.deliveryDate = :afterDate AND o.id > :afterId))"
+            + " ORDER BY o.deliveryDate, o.id";
+
+    String BY_DELIVERY_DATE_AND_STATUS_AFTER = SUMMARY_FROM
+            + " WHERE o.status = :status AND o.deliveryDate <= :endDate"
+            + " AND (o.deliveryDate > :afterDate OR (o.deliveryDate = :afterDate AND o.id > :afterId))"
+            + " ORDER BY o.deliveryDate, o.id";
+
     Optional<Order> findByClientRef(String clientRef);
-    
-    List<Order> findByStatus(OrderStatus status);
-    
-    List<Order> findByDeliveryDateBetween(LocalDateTime startDate, LocalDateTime endDate);
-    
-    @Query("SELECT o FROM Order o WHERE o.deliveryDate >= :startDate AND o.deliveryDate <= :endDate AND o.status = :status")
-    List<Order> findByDeliveryDateBetweenAndStatus(
-        @Param("startDate") LocalDateTime startDate, 
-        @Param("endDate") LocalDateTime endDate, 
-        @Param("status") OrderStatus status
-    );
-    
+
+    /**
+     * For callers that read the driver: loads it in the same query.
+     * Not read-only, so always answered by the primary: these load the order cache, which a lagging
+     * replica could fill with an order as it was before a change that was just invalidated.
+     */
+    @Transactional
+    @EntityGraph(attributePaths = "assignedDriver")
+    Optional<Order> findWithDriverById(Long id);
+
+    @Transactional
+    @EntityGraph(attributePaths = "assignedDriver")
+    Optional<Order> findWithDriverByClientRef(String clientRef);
+
     List<Order> findByAssignedDriverId(Long driverId);
-    
-    List<Order> findByAssignedDriverIsNull();
-    
-    List<Order> findByAssignedDriverIdAndStatusIn(Long driverId, List<OrderStatus> statuses);
-}
\ No newline at end of file
+
+    boolean existsByAssignedDriverIdAndStatusIn(Long driverId, Collection<OrderStatus> statuses);
+
+    long countByAssignedDriverIdAndStatus(Long driverId, OrderStatus status);
+
+    /**
+     * Order counts grouped by everything the dashboard reports, in one pass over the table
+     */
+    @Query("""
+            SELECT o.status AS status,
+                   CASE WHEN o.assignedDriver IS NULL THEN true ELSE false END AS unassigned,
+                   CASE WHEN o.priority = 'High' THEN true ELSE false END AS highPriority,
+                   COUNT(o) AS orders
+            FROM Order o
+            GROUP BY o.status,
+                     CASE WHEN o.assignedDriver IS NULL THEN true ELSE false END,
+                     CASE WHEN o.priority = 'High' THEN true ELSE false END
+            """)
+    List<OrderCount> countByStatusAssignmentAndPriority();
+
+    @Query(ALL_AFTER)
+    List<OrderSummary> findAllAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query(ALL_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamAllAfter(@Param("afterId") long afterId);
+
+    @Query(BY_STATUS_AFTER)
+    List<OrderSummary> findByStatusAfter(@Param("status") OrderStatus status, @Param("afterId") long afterId, Limit limit);
+
+    @Query(BY_STATUS_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamByStatusAfter(@Param("status") OrderStatus status, @Param("afterId") long afterId);
+
+    @Query(UNASSIGNED_AFTER)
+    List<OrderSummary> findUnassignedAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query(UNASSIGNED_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamUnassignedAfter(@Param("afterId") long afterId);
+
+    /**
+     * Every unassigned order in the given statuses; for the dispatch board, which holds all of them in memory
+     */
+    @Query(UNASSIGNED_IN_STATUSES)
+    List<OrderSummary> findUnassignedInStatuses(@Param("statuses") Collection<OrderStatus> statuses);
+
+    @Query(BY_DRIVER_AFTER)
+    List<OrderSummary> findByDriverAfter(@Param("driverId") Long driverId, @Param("afterId") long afterId, Limit limit);
+
+    @Query(BY_DRIVER_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamByDriverAfter(@Param("driverId") Long driverId, @Param("afterId") long afterId);
+
+    /**
+     * Orders due up to endDate, in (deliveryDate, id) order after the given position;
+     * start a listing with afterDate = range start and afterId = 0
+     */
+    @Query(BY_DELIVERY_DATE_AFTER)
+    List<OrderSummary> findByDeliveryDateAfter(@Param("endDate") LocalDateTime endDate,
+                                               @Param("afterDate") LocalDateTime afterDate,
+                                               @Param("afterId") long afterId,
+                                               Limit limit);
+
+    @Query(BY_DELIVERY_DATE_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamByDeliveryDateAfter(@Param("endDate") LocalDateTime endDate,
+                                                   @Param("afterDate") LocalDateTime afterDate,
+                                                   @Param("afterId") long afterId);
+
+    @Query(BY_DELIVERY_DATE_AND_STATUS_AFTER)
+    List<OrderSummary> findByDeliveryDateAndStatusAfter(@Param("endDate") LocalDateTime endDate,
+                                                        @Param("status") OrderStatus status,
+                                                        @Param("afterDate") LocalDateTime afterDate,
+                                                        @Param("afterId") long afterId,
+                                                        Limit limit);
+
+    @Query(BY_DELIVERY_DATE_AND_STATUS_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderSummary> streamByDeliveryDateAndStatusAfter(@Param("endDate") LocalDateTime endDate,
+                                                            @Param("status") OrderStatus status,
+                                                            @Param("afterDate") LocalDateTime afterDate,
+                                                            @Param("afterId") long afterId);
+
+    interface OrderCount {
+        OrderStatus getStatus();
+
+        boolean isUnassigned();
+
+        boolean isHighPriority();
+
+        long getOrders();
+    }
+}
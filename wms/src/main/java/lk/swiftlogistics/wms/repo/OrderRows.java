@@ -0,0 +1,47 @@
+package lk.swiftlogistics.wms.repo;
+
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Orders read back from the plain JDBC bulk updates (UPDATE ... RETURNING)
+ */
+final class OrderRows {
+
+    /**
+     * Every column but status and driver_id, which the bulk updates set to known values
+     */
+    static final String RETURNED_COLUMNS = """
+            id, client_ref, customer_name, delivery_address, delivery_date, created_at, updated_at,
+            package_info, priority, tracking_number, warehouse_location, weight, version""";
+
+    private OrderRows() {
+    }
+
+    /**
+     * @return a detached order with the given status and driver
+     */
+    static Order map(ResultSet rs, OrderStatus status, Driver driver) throws SQLException {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setClientRef(rs.getString("client_ref"));
+        order.setCustomerName(rs.getString("customer_name"));
+        order.setDeliveryAddress(rs.getString("delivery_address"));
+        order.setDeliveryDate(rs.getTimestamp("delivery_date").toLocalDateTime());
+        order.setStatus(status);
+        order.setAssignedDriver(driver);
+        order.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        order.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        order.setPackageInfo(rs.getString("package_info"));
+        order.setPriority(rs.getString("priority"));
+        order.setTrackingNumber(rs.getString("tracking_number"));
+        order.setWarehouseLocation(rs.getString("warehouse_location"));
+        order.setWeight(rs.getObject("weight", Double.class));
+        order.setVersion(rs.getLong("version"));
+        return order;
+    }
+}
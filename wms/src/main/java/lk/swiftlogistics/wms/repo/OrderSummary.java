@@ -0,0 +1,37 @@
+package lk.swiftlogistics.wms.repo;
+
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order as the REST API returns it: the order's own columns plus the assigned driver's id and name,
+ * instead of the whole Driver entity. Listings select it directly; single orders are converted with {@link #of(Order)}.
+ */
+public record OrderSummary(Long id, String clientRef, String trackingNumber, String customerName,
+                           String deliveryAddress, LocalDateTime deliveryDate, OrderStatus status, String priority,
+                           String packageInfo, Double weight, String warehouseLocation,
+                           LocalDateTime createdAt, LocalDateTime updatedAt, Long driverId, String driverName) {
+
+    /**
+     * Select list for {@code FROM Order o LEFT JOIN o.assignedDriver d}
+     */
+    static final String SELECT = "SELECT new lk.swiftlogistics.wms.repo.OrderSummary("
+            + "o.id, o.clientRef, COALESCE(o.trackingNumber, o.clientRef), o.customerName, o.deliveryAddress,"
+            + " o.deliveryDate, o.status, o.priority, o.packageInfo, o.weight, o.warehouseLocation,"
+            + " o.createdAt, o.updatedAt, d.id, d.name)";
+
+    /**
+     * The order's driver must be loaded, or the order still attached to its session
+     */
+    public static OrderSummary of(Order order) {
+        Driver driver = order.getAssignedDriver();
+        return new OrderSummary(order.getId(), order.getClientRef(), order.getTrackingNumber(), order.getCustomerName(),
+                order.getDeliveryAddress(), order.getDeliveryDate(), order.getStatus(), order.getPriority(),
+                order.getPackageInfo(), order.getWeight(), order.getWarehouseLocation(),
+                order.getCreatedAt(), order.getUpdatedAt(),
+                driver != null ? driver.getId() : null, driver != null ? driver.getName() : null);
+    }
+}
@@ -0,0 +1,148 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lk.swiftlogistics.wms.config.AutoDispatchProperties;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Assigns waiting orders to available drivers without a dispatcher: plans from the dispatch board
+ * (see DispatchPlanner), then gives each driver their orders with one bulk assignment.
+ *
+ * Runs shortly after new orders are ingested, with arrivals in the meantime coalesced into the same run,
+ * and on a fixed interval to pick up drivers who have become available again. Each run plans from memory,
+ * so it costs no database reads; an order or driver taken by someone else since is simply skipped by
+ * the bulk assignment.
+ */
+@Component
+@Slf4j
+public class AutoDispatcher {
+
+    private final DispatchBoard dispatchBoard;
+    private final OrderService orderService;
+    private final AutoDispatchProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final DispatchPlanner planner;
+    private final AtomicBoolean runPending = new AtomicBoolean();
+    private final Timer planning;
+    private final Counter assigned;
+
+    public AutoDispatcher(DispatchBoard dispatchBoard,
+                          OrderService orderService,
+                          AutoDispatchProperties properties,
+                          TaskScheduler taskScheduler,
+                          MeterRegistry meterRegistry) {
+        this.dispatchBoard = dispatchBoard;
+        this.orderService = orderService;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        this.planner = new DispatchPlanner(properties);
+        this.planning = Timer.builder("wms.dispatch.auto.planning")
+                .description("Time to plan an automatic dispatch run")
+                .register(meterRegistry);
+        this.assigned = Counter.builder("wms.dispatch.auto.assigned")
+                .description("Orders assigned to a driver by automatic dispatch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void schedule() {
+        if (properties.isEnabled()) {
+            taskScheduler.scheduleWithFixedDelay(this::runSafely,
+                    Instant.now().plus(properties.getInterval()), properties.getInterval());
+        }
+    }
+
+    /**
+     * New orders were saved; dispatch once the transaction commits and the debounce has passed
+     */
+    public void ordersArrived() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (runPending.compareAndSet(false, true)) {
+                taskScheduler.schedule(this::runSafely, Instant.now().plus(properties.getDebounce()));
+            }
+        });
+    }
+
+    /**
+     * Plan from the dispatch board and, unless dryRun, assign
+     *
+     * @throws IllegalStateException when the dispatch board is not loaded
+     */
+    public synchronized DispatchRun dispatch(boolean dryRun) {
+        if (!dispatchBoard.isReady()) {
+            throw new IllegalStateException("Dispatch board is not loaded yet");
+        }
+        runPending.set(false);
+        List<OrderSummary> orders = dispatchBoard.receivedOrders();
+        List<Driver> drivers = dispatchBoard.availableDrivers();
+        if (orders.isEmpty() || drivers.isEmpty()) {
+            return new DispatchRun(orders.size(), drivers.size(), 0, 0, 0, 0, List.of(), 0, 0);
+        }
+
+        long start = System.nanoTime();
+        DispatchPlanner.Plan plan = planner.plan(orders, drivers, LocalDateTime.now());
+        long planNanos = System.nanoTime() - start;
+        planning.record(planNanos, TimeUnit.NANOSECONDS);
+
+        int assignedOrders = 0;
+        int skippedLoads = 0;
+        if (!dryRun) {
+            for (DispatchPlanner.Load load : plan.loads()) {
+                try {
+                    assignedOrders += orderService.bulkAssignDriver(load.orderIds(), load.driverId()).assigned().size();
+                } catch (RuntimeException e) {
+                    // Driver taken, or none of the orders still waiting: left for the next run
+                    skippedLoads++;
+                    log.debug("Automatic dispatch skipped driver {}: {}", load.driverId(), e.getMessage());
+                }
+            }
+            assigned.increment(assignedOrders);
+        }
+
+        DispatchRun run = new DispatchRun(orders.size(), drivers.size(), plan.loads().size(), plan.plannedOrders(),
+                assignedOrders, skippedLoads, plan.oversized(), plan.unplaced(), plan.deferred());
+        log.info("Automatic dispatch{}: {} of {} waiting orders planned for {} of {} drivers in {} ms, {} assigned",
+                dryRun ? " (dry run)" : "", run.plannedOrders(), orders.size(), run.loads(), drivers.size(),
+                planNanos / 1_000_000, assignedOrders);
+        return run;
+    }
+
+    private void runSafely() {
+        try {
+            if (dispatchBoard.isReady()) {
+                dispatch(false);
+            }
+        } catch (Exception e) {
+            log.warn("Automatic dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param loads         drivers given orders
+     * @param plannedOrders orders in those loads
+     * @param assigned      of those, orders actually assigned (0 on a dry run)
+     * @param skippedLoads  loads not applied because the driver had been taken meanwhile
+     * @param oversized     orders heavier than any available driver can carry
+     * @param unplaced      orders left waiting because no driver had room
+     * @param deferred      orders due beyond wms.auto-dispatch.horizon
+     */
+    public record DispatchRun(int waitingOrders, int availableDrivers, int loads, int plannedOrders, int assigned,
+                              int skippedLoads, List<Long> oversized, int unplaced, int deferred) {
+    }
+}
@@ -0,0 +1,85 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lk.swiftlogistics.wms.config.ConflictRetryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write in its own transaction and, when it loses a race to a concurrent change (a stale @Version,
+ * or a deadlock between two writers), runs it again from the start in a new transaction after a short
+ * random pause. Every attempt re-reads what it checks, so a retry either succeeds on fresh state or fails
+ * the business checks the way a later request would. Gives up with OrderConflictException after
+ * wms.conflict-retry.max-attempts.
+ *
+ * Side effects are registered after commit (AfterCommit, transactional event listeners), so a failed
+ * attempt leaves none behind. Called inside a caller's transaction the write just joins it, once:
+ * its conflict only shows when the caller commits.
+ */
+@Component
+@Slf4j
+class ConflictRetry {
+
+    private final ConflictRetryProperties properties;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+
+    ConflictRetry(ConflictRetryProperties properties, PlatformTransactionManager transactionManager,
+                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param operation names the write in the conflict message and the wms.conflicts metric, e.g. assign-driver
+     */
+    <T> T execute(String operation, Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return write.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> write.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    conflicts(operation, "exhausted").increment();
+                    throw new OrderConflictException("Concurrent changes kept conflicting with " + operation
+                            + " (" + attempt + " attempts); reload and try again", e);
+                }
+                conflicts(operation, "retried").increment();
+                log.debug("Attempt {} of {} conflicted with a concurrent change, retrying: {}", attempt, operation, e.getMessage());
+                pause(attempt, operation, e);
+            }
+        }
+    }
+
+    /**
+     * Random, so writers that collided do not collide again on the next attempt
+     */
+    private void pause(int attempt, String operation, ConcurrencyFailureException cause) {
+        long maxMillis = properties.getBackoff().toMillis() * attempt;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderConflictException("Interrupted while retrying " + operation, cause);
+        }
+    }
+
+    private Counter conflicts(String operation, String outcome) {
+        return Counter.builder("wms.conflicts")
+                .description("Writes that lost an optimistic locking race, by whether they were retried or given up")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,140 @@
+package lk.swiftlogistics.wms.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lk.swiftlogistics.wms.messaging.OrderFailureHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Inspection and replay of order messages parked in the orders dead-letter queue
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterService {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final IngestionProperties ingestionProperties;
+
+    /**
+     * Read up to limit dead letters without removing them; they are requeued in their original order
+     */
+    public List<DeadLetter> getDeadLetters(int limit) {
+        return rabbitTemplate.execute(channel -> {
+            List<DeadLetter> deadLetters = new ArrayList<>();
+            long lastTag = -1;
+            while (deadLetters.size() < limit) {
+                GetResponse response = channel.basicGet(RabbitConfig.ORDERS_DEAD_LETTER_QUEUE, false);
+                if (response == null) {
+                    break;
+                }
+                deadLetters.add(toDeadLetter(response));
+                lastTag = response.getEnvelope().getDeliveryTag();
+            }
+            if (lastTag >= 0) {
+                channel.basicNack(lastTag, true, true);
+            }
+            return deadLetters;
+        });
+    }
+
+    public long countDeadLetters() {
+        return rabbitTemplate.execute(channel -> channel.messageCount(RabbitConfig.ORDERS_DEAD_LETTER_QUEUE));
+    }
+
+    /**
+     * Move up to limit dead letters back onto the orders queue with a fresh attempt count.
+     *
+     * The dead letters are acked together only once every copy is confirmed and routed by the broker. If any
+     * copy is nacked, returned or not confirmed in time, they all stay in the dead-letter queue; copies
+     * that did reach the orders queue are then ingested twice, and the duplicate check drops the second.
+     *
+     * @return number of messages replayed
+     */
+    public int replay(int limit) {
+        long confirmTimeout = ingestionProperties.getRetry().getConfirmTimeout().toMillis();
+        int replayed = rabbitTemplate.execute(channel -> {
+            channel.confirmSelect();
+            AtomicBoolean returned = new AtomicBoolean();
+            ReturnListener onReturn = (replyCode, replyText, exchange, routingKey, properties, body) -> returned.set(true);
+            channel.addReturnListener(onReturn);
+            try {
+                int count = 0;
+                long lastTag = -1;
+                while (count < limit) {
+                    GetResponse response = channel.basicGet(RabbitConfig.ORDERS_DEAD_LETTER_QUEUE, false);
+                    if (response == null) {
+                        break;
+                    }
+                    Map<String, Object> headers = response.getProps().getHeaders() != null
+                            ? new HashMap<>(response.getProps().getHeaders())
+                            : new HashMap<>();
+                    headers.remove(OrderFailureHandler.ATTEMPTS_HEADER);
+                    headers.remove(OrderFailureHandler.FAILURE_REASON_HEADER);
+                    headers.remove(OrderFailureHandler.FAILURE_EXCEPTION_HEADER);
+                    headers.remove(OrderFailureHandler.FAILED_AT_HEADER);
+                    AMQP.BasicProperties properties = response.getProps().builder().headers(headers).build();
+
+                    channel.basicPublish("", RabbitConfig.ORDERS_QUEUE, true, properties, response.getBody());
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    count++;
+                }
+                if (count == 0) {
+                    return 0;
+                }
+                // Closes the channel on a nack or timeout, which requeues the unacked dead letters
+                channel.waitForConfirmsOrDie(confirmTimeout);
+                // A return arrives before the confirm
+                if (returned.get()) {
+                    channel.basicNack(lastTag, true, true);
+                    throw new IOException("Replayed dead letters could not be routed to " + RabbitConfig.ORDERS_QUEUE);
+                }
+                channel.basicAck(lastTag, true);
+                return count;
+            } finally {
+                channel.removeReturnListener(onReturn);
+            }
+        });
+        log.info("Replayed {} dead-lettered order messages", replayed);
+        return replayed;
+    }
+
+    private static DeadLetter toDeadLetter(GetResponse response) {
+        Map<String, Object> headers = response.getProps().getHeaders() != null
+                ? response.getProps().getHeaders()
+                : Map.of();
+        Object attempts = headers.get(OrderFailureHandler.ATTEMPTS_HEADER);
+        return new DeadLetter(
+                response.getProps().getMessageId(),
+                attempts instanceof Number number ? number.intValue() : 1,
+                headerText(headers, OrderFailureHandler.FAILURE_REASON_HEADER),
+                headerText(headers, OrderFailureHandler.FAILURE_EXCEPTION_HEADER),
+                headerText(headers, OrderFailureHandler.FAILED_AT_HEADER),
+                new String(response.getBody(), StandardCharsets.UTF_8)
+        );
+    }
+
+    // AMQP string headers arrive as LongString
+    private static String headerText(Map<String, Object> headers, String name) {
+        Object value = headers.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    public record DeadLetter(String messageId, int attempts, String failureReason, String failureException,
+                             String failedAt, String payload) {
+    }
+}
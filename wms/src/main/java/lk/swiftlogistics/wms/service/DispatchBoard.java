@@ -0,0 +1,385 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lk.swiftlogistics.wms.config.DispatchBoardProperties;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Live dispatch board: every order still waiting for a driver (unassigned and not delivered) and every
+ * available driver, held in memory so dispatcher listings need no database round trip.
+ *
+ * Orders are indexed by id, for the keyset-paginated listings, and by urgency (priority, then delivery date).
+ * The board is loaded once the application is ready and then follows the changes OrderService and
+ * OrderIngestionService make, applied after they commit. A periodic check compares it with the database
+ * and repairs and counts any drift, e.g. from changes made outside the application.
+ * Until the first load completes, isReady() is false and callers should query the database.
+ */
+@Component
+@Slf4j
+public class DispatchBoard {
+
+    // Orders a driver can still be assigned to
+    private static final Set<OrderStatus> WAITING_STATUSES = EnumSet.of(OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH);
+
+    private static final Comparator<OrderSummary> BY_URGENCY = Comparator
+            .comparingInt((OrderSummary order) -> priorityRank(order.priority()))
+            .thenComparing(OrderSummary::deliveryDate)
+            .thenComparing(OrderSummary::id);
+
+    private final OrderRepository orderRepository;
+    private final DriverRepository driverRepository;
+    private final DispatchBoardProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate primaryReads;
+    private final Counter drift;
+
+    private final ConcurrentSkipListMap<Long, OrderSummary> ordersById = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<OrderSummary> ordersByUrgency = new ConcurrentSkipListSet<>(BY_URGENCY);
+    private final ConcurrentSkipListMap<Long, Driver> availableDrivers = new ConcurrentSkipListMap<>();
+
+    // When each order or driver was last changed on the board, so a check does not undo changes newer than its snapshot
+    private final Map<Long, Long> orderChangedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverChangedAt = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public DispatchBoard(OrderRepository orderRepository,
+                         DriverRepository driverRepository,
+                         DispatchBoardProperties properties,
+                         TaskScheduler taskScheduler,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.driverRepository = driverRepository;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        // Read-write, so the snapshot comes from the primary: one from a lagging replica would be "repaired" into the board
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.drift = Counter.builder("wms.dispatch.board.drift")
+                .description("Board entries that differed from the database and were repaired by the consistency check")
+                .register(meterRegistry);
+        Gauge.builder("wms.dispatch.board.orders", ordersById, Map::size)
+                .description("Orders waiting for a driver on the dispatch board")
+                .register(meterRegistry);
+        Gauge.builder("wms.dispatch.board.drivers", availableDrivers, Map::size)
+                .description("Available drivers on the dispatch board")
+                .register(meterRegistry);
+    }
+
+    /**
+     * After CommandLineRunners, so seeded data is included
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        check();
+        ready = true;
+        log.info("Dispatch board loaded: {} waiting orders, {} available drivers in {} ms",
+                ordersById.size(), availableDrivers.size(), (System.nanoTime() - start) / 1_000_000);
+        taskScheduler.scheduleWithFixedDelay(this::checkForDrift,
+                Instant.now().plus(properties.getCheckInterval()), properties.getCheckInterval());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Reads
+
+    public OrderService.OrderPage unassignedOrders(OrderCursor after, int limit) {
+        return OrderService.OrderPage.of(waitingAfter(after).limit(limit + 1L).toList(), limit);
+    }
+
+    public void streamUnassignedOrders(OrderCursor after, Consumer<OrderSummary> sink) {
+        waitingAfter(after).forEach(sink);
+    }
+
+    /**
+     * RECEIVED orders; assigning a driver always moves an order on to READY_TO_DISPATCH, so all of them are here
+     */
+    public OrderService.OrderPage readyForDispatchOrders(OrderCursor after, int limit) {
+        return OrderService.OrderPage.of(receivedAfter(after).limit(limit + 1L).toList(), limit);
+    }
+
+    public void streamReadyForDispatchOrders(OrderCursor after, Consumer<OrderSummary> sink) {
+        receivedAfter(after).forEach(sink);
+    }
+
+    /**
+     * The most urgent waiting orders: High priority first, then by delivery date
+     */
+    public List<OrderSummary> mostUrgent(int limit) {
+        return ordersByUrgency.stream().limit(limit).toList();
+    }
+
+    /**
+     * Every RECEIVED order waiting for a driver, by id
+     */
+    public List<OrderSummary> receivedOrders() {
+        return receivedAfter(null).toList();
+    }
+
+    public List<Driver> availableDrivers() {
+        return new ArrayList<>(availableDrivers.values());
+    }
+
+    public int waitingOrderCount() {
+        return ordersById.size();
+    }
+
+    public int availableDriverCount() {
+        return availableDrivers.size();
+    }
+
+    // Changes, recorded inside the transaction making them and applied once it commits
+
+    public void orderChanged(Order order) {
+        ordersChanged(List.of(order));
+    }
+
+    public void ordersChanged(Collection<Order> orders) {
+        if (!properties.isEnabled() || orders.isEmpty()) {
+            return;
+        }
+        // Snapshot now: the entities may change again before the commit
+        Map<Long, OrderSummary> changes = new HashMap<>();
+        for (Order order : orders) {
+            boolean waiting = order.getAssignedDriver() == null && WAITING_STATUSES.contains(order.getStatus());
+            changes.put(order.getId(), waiting ? OrderSummary.of(order) : null);
+        }
+        AfterCommit.run(() -> applyOrders(changes));
+    }
+
+    public void driverChanged(Driver driver) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Long id = driver.getId();
+        Driver snapshot = driver.isAvailable() ? copyOf(driver) : null;
+        AfterCommit.run(() -> applyDriver(id, snapshot));
+    }
+
+    public void driverRemoved(Long driverId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        AfterCommit.run(() -> applyDriver(driverId, null));
+    }
+
+    // Consistency check
+
+    void checkForDrift() {
+        try {
+            int repaired = check();
+            if (repaired > 0) {
+                drift.increment(repaired);
+                log.warn("Dispatch board drifted from the database: {} entries repaired", repaired);
+            }
+        } catch (Exception e) {
+            log.warn("Dispatch board consistency check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Bring the board in line with the database
+     *
+     * @return entries that were missing, stale or should not have been there
+     */
+    int check() {
+        long snapshotStart = System.nanoTime();
+        return primaryReads.execute(status -> {
+            List<OrderSummary> orders = orderRepository.findUnassignedInStatuses(WAITING_STATUSES);
+            List<Driver> drivers = driverRepository.findByAvailable(true).stream().map(DispatchBoard::copyOf).toList();
+            return reconcile(orders, drivers, snapshotStart);
+        });
+    }
+
+    private synchronized int reconcile(List<OrderSummary> orders, List<Driver> drivers, long snapshotStart) {
+        int repaired = 0;
+
+        Map<Long, OrderSummary> actualOrders = new HashMap<>();
+        orders.forEach(order -> actualOrders.put(order.id(), order));
+        for (Long id : List.copyOf(ordersById.keySet())) {
+            if (!actualOrders.containsKey(id) && !changedSince(orderChangedAt, id, snapshotStart)) {
+                removeOrder(id);
+                repaired++;
+            }
+        }
+        for (OrderSummary order : orders) {
+            OrderSummary held = ordersById.get(order.id());
+            if (!sameForDispatch(held, order) && !changedSince(orderChangedAt, order.id(), snapshotStart)) {
+                putOrder(order);
+                repaired++;
+            }
+        }
+
+        Map<Long, Driver> actualDrivers = new HashMap<>();
+        drivers.forEach(driver -> actualDrivers.put(driver.getId(), driver));
+        for (Long id : List.copyOf(availableDrivers.keySet())) {
+            if (!actualDrivers.containsKey(id) && !changedSince(driverChangedAt, id, snapshotStart)) {
+                availableDrivers.remove(id);
+                repaired++;
+            }
+        }
+        for (Driver driver : drivers) {
+            Driver held = availableDrivers.get(driver.getId());
+            if (!sameForDispatch(held, driver) && !changedSince(driverChangedAt, driver.getId(), snapshotStart)) {
+                availableDrivers.put(driver.getId(), driver);
+                repaired++;
+            }
+        }
+
+        // Changes older than this snapshot are in it; only newer ones still need protecting
+        orderChangedAt.values().removeIf(changedAt -> changedAt - snapshotStart < 0);
+        driverChangedAt.values().removeIf(changedAt -> changedAt - snapshotStart < 0);
+        return repaired;
+    }
+
+    private synchronized void applyOrders(Map<Long, OrderSummary> changes) {
+        long now = System.nanoTime();
+        changes.forEach((id, order) -> {
+            if (order != null) {
+                putOrder(order);
+            } else {
+                removeOrder(id);
+            }
+            orderChangedAt.put(id, now);
+        });
+    }
+
+    private synchronized void applyDriver(Long id, Driver driver) {
+        if (driver != null) {
+            availableDrivers.put(id, driver);
+        } else {
+            availableDrivers.remove(id);
+        }
+        driverChangedAt.put(id, System.nanoTime());
+    }
+
+    private void putOrder(OrderSummary order) {
+        OrderSummary previous = ordersById.put(order.id(), order);
+        if (previous != null) {
+            ordersByUrgency.remove(previous);
+        }
+        ordersByUrgency.add(order);
+    }
+
+    private void removeOrder(Long id) {
+        OrderSummary previous = ordersById.remove(id);
+        if (previous != null) {
+            ordersByUrgency.remove(previous);
+        }
+    }
+
+    private Stream<OrderSummary> waitingAfter(OrderCursor after) {
+        return ordersById.tailMap(after != null ? after.id() : 0, false).values().stream();
+    }
+
+    private Stream<OrderSummary> receivedAfter(OrderCursor after) {
+        return waitingAfter(after).filter(order -> order.status() == OrderStatus.RECEIVED);
+    }
+
+    private static boolean changedSince(Map<Long, Long> changedAt, Long id, long snapshotStart) {
+        Long at = changedAt.get(id);
+        return at != null && at - snapshotStart >= 0;
+    }
+
+    /**
+     * Compares what the board is used for; audit timestamps are left out
+     */
+    private static boolean sameForDispatch(OrderSummary held, OrderSummary actual) {
+        return held != null
+                && held.status() == actual.status()
+                && Objects.equals(held.priority(), actual.priority())
+                && sameToTheMicrosecond(held.deliveryDate(), actual.deliveryDate())
+                && Objects.equals(held.clientRef(), actual.clientRef())
+                && Objects.equals(held.customerName(), actual.customerName())
+                && Objects.equals(held.deliveryAddress(), actual.deliveryAddress());
+    }
+
+    /**
+     * The database keeps microseconds, while times set in the application can carry nanoseconds
+     */
+    private static boolean sameToTheMicrosecond(LocalDateTime held, LocalDateTime actual) {
+        if (held == null || actual == null) {
+            return held == actual;
+        }
+        return Math.abs(Duration.between(held, actual).toNanos()) < 1_000;
+    }
+
+    private static boolean sameForDispatch(Driver held, Driver actual) {
+        return held != null
+                && Objects.equals(held.getName(), actual.getName())
+                && Objects.equals(held.getLicenseNumber(), actual.getLicenseNumber())
+                && Objects.equals(held.getPhoneNumber(), actual.getPhoneNumber())
+                && Objects.equals(held.getEmail(), actual.getEmail())
+                && Objects.equals(held.getWeightCapacity(), actual.getWeightCapacity());
+    }
+
+    /**
+     * 0 for High, 1 for Medium or none, 2 for Low
+     */
+    static int priorityRank(String priority) {
+        if (priority == null) {
+            return 1;
+        }
+        return switch (priority) {
+            case "High" -> 0;
+            case "Low" -> 2;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Detached copy holding only the driver's own columns, safe to keep and serialize outside a session
+     */
+    private static Driver copyOf(Driver driver) {
+        Driver copy = new Driver();
+        copy.setId(driver.getId());
+        copy.setName(driver.getName());
+        copy.setLicenseNumber(driver.getLicenseNumber());
+        copy.setPhoneNumber(driver.getPhoneNumber());
+        copy.setEmail(driver.getEmail());
+        copy.setAvailable(driver.isAvailable());
+        copy.setWeightCapacity(driver.getWeightCapacity());
+        copy.setCreatedAt(driver.getCreatedAt());
+        copy.setUpdatedAt(driver.getUpdatedAt());
+        copy.setVersion(driver.getVersion());
+        return copy;
+    }
+}
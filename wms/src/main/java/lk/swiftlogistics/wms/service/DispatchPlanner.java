@@ -0,0 +1,174 @@
+package lk.swiftlogistics.wms.service;
+
+import lk.swiftlogistics.wms.config.AutoDispatchProperties;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Plans which available driver takes which waiting orders; pure computation, the caller applies the plan.
+ *
+ * Orders are taken most urgent first: by the day they are due (overdue orders count as due today), then
+ * priority, so a driver short of capacity leaves behind the orders that can best wait. Within each day and
+ * priority the heaviest go first, and each goes to the driver it fits most tightly (best-fit decreasing), so
+ * drivers are filled before more are sent out. A driver is limited by weight capacity and by
+ * wms.auto-dispatch.max-orders-per-driver.
+ *
+ * Planning is O(n log n) in the orders plus O(log d) per order in the drivers; above
+ * wms.auto-dispatch.parallel-threshold the candidates are filtered and sorted in parallel.
+ */
+final class DispatchPlanner {
+
+    private static final Comparator<Candidate> PACKING_ORDER = Comparator
+            .comparingLong(Candidate::dueDay)
+            .thenComparingInt(Candidate::priorityRank)
+            .thenComparing(Comparator.comparingDouble(Candidate::weight).reversed())
+            .thenComparingLong(Candidate::id);
+
+    // Tightest fit first; the id keeps drivers with the same room apart
+    private static final Comparator<Load> BY_ROOM = Comparator
+            .comparingDouble(Load::room)
+            .thenComparingLong(Load::driverId);
+
+    private final AutoDispatchProperties properties;
+
+    DispatchPlanner(AutoDispatchProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param orders  waiting orders; any not RECEIVED and unassigned are ignored
+     * @param drivers available drivers
+     */
+    Plan plan(List<OrderSummary> orders, List<Driver> drivers, LocalDateTime now) {
+        LocalDateTime horizon = now.plus(properties.getHorizon());
+        long today = now.toLocalDate().toEpochDay();
+        List<OrderSummary> eligible = stream(orders)
+                .filter(order -> order.status() == OrderStatus.RECEIVED && order.driverId() == null)
+                .toList();
+        Candidate[] candidates = stream(eligible)
+                .filter(order -> !order.deliveryDate().isAfter(horizon))
+                .map(order -> candidate(order, today))
+                .toArray(Candidate[]::new);
+        if (candidates.length >= properties.getParallelThreshold()) {
+            Arrays.parallelSort(candidates, PACKING_ORDER);
+        } else {
+            Arrays.sort(candidates, PACKING_ORDER);
+        }
+
+        TreeSet<Load> open = new TreeSet<>(BY_ROOM);
+        double largest = 0;
+        for (Driver driver : drivers) {
+            double capacity = driver.getWeightCapacity() != null ? driver.getWeightCapacity() : properties.getDefaultCapacity();
+            if (capacity > 0 && properties.getMaxOrdersPerDriver() > 0) {
+                open.add(new Load(driver.getId(), capacity));
+                largest = Math.max(largest, capacity);
+            }
+        }
+
+        List<Load> used = new ArrayList<>();
+        List<Long> oversized = new ArrayList<>();
+        int unplaced = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.weight() > largest) {
+                oversized.add(candidate.id());
+                continue;
+            }
+            Load load = open.ceiling(Load.probe(candidate.weight()));
+            if (load == null) {
+                unplaced++;
+                continue;
+            }
+            open.remove(load);
+            if (load.orderIds.isEmpty()) {
+                used.add(load);
+            }
+            load.add(candidate);
+            if (load.orderIds.size() < properties.getMaxOrdersPerDriver()) {
+                open.add(load);
+            }
+        }
+        // Loads are in the order their first, most urgent, order was placed
+        return new Plan(used, oversized, unplaced, eligible.size() - candidates.length);
+    }
+
+    private <T> Stream<T> stream(List<T> items) {
+        return items.size() >= properties.getParallelThreshold() ? items.parallelStream() : items.stream();
+    }
+
+    private Candidate candidate(OrderSummary order, long today) {
+        LocalDate due = order.deliveryDate().toLocalDate();
+        double weight = order.weight() != null && order.weight() >= 0 ? order.weight() : properties.getDefaultOrderWeight();
+        return new Candidate(order.id(), Math.max(today, due.toEpochDay()), DispatchBoard.priorityRank(order.priority()), weight);
+    }
+
+    private record Candidate(long id, long dueDay, int priorityRank, double weight) {
+    }
+
+    /**
+     * Orders planned for one driver
+     */
+    static final class Load {
+
+        private final long driverId;
+        private final List<Long> orderIds = new ArrayList<>();
+        private double room;
+        private double weight;
+
+        private Load(long driverId, double capacity) {
+            this.driverId = driverId;
+            this.room = capacity;
+        }
+
+        /**
+         * Sorts before every load with at least this much room
+         */
+        private static Load probe(double weight) {
+            return new Load(Long.MIN_VALUE, weight);
+        }
+
+        private void add(Candidate candidate) {
+            orderIds.add(candidate.id());
+            room -= candidate.weight();
+            weight += candidate.weight();
+        }
+
+        long driverId() {
+            return driverId;
+        }
+
+        List<Long> orderIds() {
+            return orderIds;
+        }
+
+        double room() {
+            return room;
+        }
+
+        double weight() {
+            return weight;
+        }
+    }
+
+    /**
+     * @param loads     one per driver given orders, most urgent first
+     * @param oversized orders heavier than any available driver can carry
+     * @param unplaced  orders that fit a driver but found none with room left
+     * @param deferred  orders due beyond the horizon, left for a later run
+     */
+    record Plan(List<Load> loads, List<Long> oversized, int unplaced, int deferred) {
+
+        int plannedOrders() {
+            return loads.stream().mapToInt(load -> load.orderIds().size()).sum();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package lk.swiftlogistics.wms.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single instance deployments: there are no other caches to tell
+ */
+@Component
+@ConditionalOnProperty(prefix = "wms.cache", name = "invalidation", havingValue = "local", matchIfMissing = true)
+public class LocalOrderCacheInvalidationChannel implements OrderCacheInvalidationChannel {
+
+    @Override
+    public void publish(OrderCacheInvalidation invalidation) {
+    }
+}
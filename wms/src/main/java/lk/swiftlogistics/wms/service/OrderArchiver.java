@@ -0,0 +1,113 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lk.swiftlogistics.wms.config.ArchiveProperties;
+import lk.swiftlogistics.wms.repo.OrderArchivingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Moves delivered orders whose delivery date is older than the retention out of orders and into
+ * orders_archive, one delivery month at a time, creating that month's partition first.
+ *
+ * Delivered orders never change status again, so nothing but history lookups needs them; keeping them out of
+ * orders keeps its size, and every query on it, proportional to recent business rather than all of it.
+ * Each batch is its own short transaction. Totals are kept in orders_archive_months for the dashboard.
+ */
+@Component
+@Slf4j
+public class OrderArchiver {
+
+    private final OrderArchivingRepository archivingRepository;
+    private final ArchiveProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archived;
+
+    public OrderArchiver(OrderArchivingRepository archivingRepository,
+                         ArchiveProperties properties,
+                         TaskScheduler taskScheduler,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.archivingRepository = archivingRepository;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archived = Counter.builder("wms.archive.orders")
+                .description("Delivered orders moved into the order archive")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void schedule() {
+        if (properties.isEnabled()) {
+            taskScheduler.scheduleWithFixedDelay(this::runSafely,
+                    Instant.now().plus(properties.getInterval()), properties.getInterval());
+        }
+    }
+
+    /**
+     * @return the number of orders archived
+     */
+    public long archive() {
+        LocalDateTime archivedAt = LocalDateTime.now();
+        LocalDateTime cutoff = archivedAt.minus(properties.getRetention());
+        long total = 0;
+        Optional<LocalDateTime> oldest;
+        while ((oldest = archivingRepository.oldestDeliveredBefore(cutoff)).isPresent()) {
+            YearMonth month = YearMonth.from(oldest.get());
+            long moved = archiveMonth(month, cutoff, archivedAt);
+            if (moved == 0) {
+                // Everything left in this month is locked by a writer; try again next run
+                break;
+            }
+            total += moved;
+        }
+        if (total > 0) {
+            log.info("Archived {} delivered orders due before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private long archiveMonth(YearMonth month, LocalDateTime cutoff, LocalDateTime archivedAt) {
+        archivingRepository.createPartition(month);
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime nextMonth = month.plusMonths(1).atDay(1).atStartOfDay();
+        LocalDateTime to = nextMonth.isBefore(cutoff) ? nextMonth : cutoff;
+
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                OrderArchivingRepository.Moved batch =
+                        archivingRepository.moveDelivered(from, to, properties.getBatchSize(), archivedAt);
+                if (batch.orders() > 0) {
+                    archivingRepository.addToMonth(month, batch, archivedAt);
+                }
+                return batch.orders();
+            });
+            archived.increment(moved);
+            total += moved;
+        } while (moved == properties.getBatchSize());
+        log.debug("Archived {} delivered orders from {}", total, month);
+        return total;
+    }
+
+    private void runSafely() {
+        try {
+            archive();
+        } catch (Exception e) {
+            log.warn("Order archival failed, will retry in {}: {}", properties.getInterval(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package lk.swiftlogistics.wms.service;
+
+/**
+ * An order whose cached lookups (by id and by client reference) are out of date
+ */
+public record OrderCacheInvalidation(Long orderId, String clientRef) {
+}
@@ -0,0 +1,11 @@
+package lk.swiftlogistics.wms.service;
+
+/**
+ * Tells the other WMS instances that an order changed, so they drop it from their order cache.
+ * Called after the change committed and the local cache was invalidated.
+ * Implementations deliver what they receive to {@link OrderLookupCache#evictRemote(OrderCacheInvalidation)}.
+ */
+public interface OrderCacheInvalidationChannel {
+
+    void publish(OrderCacheInvalidation invalidation);
+}
@@ -0,0 +1,12 @@
+package lk.swiftlogistics.wms.service;
+
+/**
+ * A write kept losing to concurrent changes of the same orders or driver and was given up.
+ * Reloading and retrying the request may succeed; controllers answer it with HTTP 409.
+ */
+public class OrderConflictException extends RuntimeException {
+
+    public OrderConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
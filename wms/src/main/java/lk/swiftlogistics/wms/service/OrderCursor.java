@@ -0,0 +1,48 @@
+package lk.swiftlogistics.wms.service;
+
+import lk.swiftlogistics.wms.repo.OrderSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in an order listing: the last order a client has seen.
+ * Listings ordered by id only use the id; delivery date listings use (deliveryDate, id).
+ * Clients get it as an opaque URL-safe token.
+ */
+public record OrderCursor(LocalDateTime deliveryDate, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static OrderCursor after(OrderSummary order) {
+        return new OrderCursor(order.deliveryDate(), order.id());
+    }
+
+    public String encode() {
+        String plain = id + (deliveryDate != null ? SEPARATOR + deliveryDate.toString() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null for a null or blank token, meaning the start of the listing
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = plain.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new OrderCursor(null, Long.parseLong(plain));
+            }
+            return new OrderCursor(LocalDateTime.parse(plain.substring(separator + 1)),
+                    Long.parseLong(plain.substring(0, separator)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
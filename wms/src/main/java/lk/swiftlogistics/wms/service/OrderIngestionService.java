@@ -0,0 +1,99 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.repo.OrderBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+@Transactional
+public class OrderIngestionService {
+
+    private final OrderBatchRepository orderBatchRepository;
+    private final RecentClientRefIndex recentClientRefs;
+    private final OrderStatisticsService orderStatistics;
+    private final DispatchBoard dispatchBoard;
+    private final AutoDispatcher autoDispatcher;
+    private final Counter memoryDuplicates;
+    private final Counter databaseDuplicates;
+
+    public OrderIngestionService(OrderBatchRepository orderBatchRepository,
+                                 RecentClientRefIndex recentClientRefs,
+                                 OrderStatisticsService orderStatistics,
+                                 DispatchBoard dispatchBoard,
+                                 AutoDispatcher autoDispatcher,
+                                 MeterRegistry meterRegistry) {
+        this.orderBatchRepository = orderBatchRepository;
+        this.recentClientRefs = recentClientRefs;
+        this.orderStatistics = orderStatistics;
+        this.dispatchBoard = dispatchBoard;
+        this.autoDispatcher = autoDispatcher;
+        this.memoryDuplicates = Counter.builder("wms.ingestion.duplicates")
+                .description("Duplicate CMS orders dropped during ingestion")
+                .tag("detected-by", "memory")
+                .register(meterRegistry);
+        this.databaseDuplicates = Counter.builder("wms.ingestion.duplicates")
+                .description("Duplicate CMS orders dropped during ingestion")
+                .tag("detected-by", "database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persist a batch of incoming orders in a single transaction, dropping duplicates.
+     * Client references seen recently are filtered in memory; anything else that already
+     * exists is skipped by the database insert instead of failing the batch.
+     */
+    public BatchResult saveBatch(List<Order> orders) {
+        Set<String> batchRefs = new HashSet<>();
+        List<Order> candidates = new ArrayList<>(orders.size());
+        
+        for (Order order : orders) {
+            String clientRef = order.getClientRef();
+            if (!batchRefs.add(clientRef) || recentClientRefs.contains(clientRef)) {
+                log.debug("Dropping duplicate order {}", clientRef);
+                continue;
+            }
+            candidates.add(order);
+        }
+        
+        List<Order> inserted = orderBatchRepository.insertIgnoringDuplicates(candidates);
+        
+        int inMemory = orders.size() - candidates.size();
+        int inDatabase = candidates.size() - inserted.size();
+        memoryDuplicates.increment(inMemory);
+        databaseDuplicates.increment(inDatabase);
+        
+        rememberAfterCommit(batchRefs);
+        orderStatistics.recordCreated(inserted);
+        dispatchBoard.ordersChanged(inserted);
+        if (!inserted.isEmpty()) {
+            autoDispatcher.ordersArrived();
+        }
+        
+        log.debug("Persisted batch of {} orders ({} duplicates dropped)", inserted.size(), inMemory + inDatabase);
+        return new BatchResult(inserted, inMemory + inDatabase);
+    }
+
+    private void rememberAfterCommit(Set<String> clientRefs) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentClientRefs.addAll(clientRefs);
+            }
+        });
+    }
+
+    public record BatchResult(List<Order> inserted, int duplicates) {
+    }
+}
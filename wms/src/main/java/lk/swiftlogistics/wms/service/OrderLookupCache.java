@@ -0,0 +1,123 @@
+package lk.swiftlogistics.wms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lk.swiftlogistics.wms.config.CacheProperties;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of single orders by id and by client reference, bounded by size and TTL.
+ *
+ * Values are immutable OrderSummary snapshots. Orders that do not exist are not cached, so a newly
+ * ingested order is visible immediately. OrderService invalidates an order after every change to it
+ * commits. A lookup that read the old row before the commit cannot survive that: Caffeine makes an
+ * invalidation wait for a load in progress on the same key, then removes what it loaded.
+ * Driver details copied into a cached order (the name) can lag a driver edit by up to the TTL.
+ *
+ * Hits, misses, evictions and size are published as the standard cache.* meters (cache=orders.by-id,
+ * orders.by-client-ref).
+ */
+@Component
+@Slf4j
+public class OrderLookupCache {
+
+    private final CacheProperties cacheProperties;
+    private final OrderCacheInvalidationChannel invalidationChannel;
+    private final Cache<Long, OrderSummary> byId;
+    private final Cache<String, OrderSummary> byClientRef;
+    private final Counter localInvalidations;
+    private final Counter remoteInvalidations;
+
+    public OrderLookupCache(CacheProperties cacheProperties,
+                            OrderCacheInvalidationChannel invalidationChannel,
+                            MeterRegistry meterRegistry) {
+        this.cacheProperties = cacheProperties;
+        this.invalidationChannel = invalidationChannel;
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "orders.by-id");
+        this.byClientRef = CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "orders.by-client-ref");
+        this.localInvalidations = invalidationCounter(meterRegistry, "local");
+        this.remoteInvalidations = invalidationCounter(meterRegistry, "remote");
+    }
+
+    /**
+     * @param loader reads the order from the database on a miss
+     */
+    public Optional<OrderSummary> getById(Long id, Function<Long, Optional<OrderSummary>> loader) {
+        if (!cacheProperties.isEnabled()) {
+            return loader.apply(id);
+        }
+        return Optional.ofNullable(byId.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * @param loader reads the order from the database on a miss
+     */
+    public Optional<OrderSummary> getByClientRef(String clientRef, Function<String, Optional<OrderSummary>> loader) {
+        if (!cacheProperties.isEnabled()) {
+            return loader.apply(clientRef);
+        }
+        return Optional.ofNullable(byClientRef.get(clientRef, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Drop the order here once the current transaction commits, then tell the other instances
+     */
+    public void invalidateAfterCommit(Order order) {
+        invalidateAfterCommit(List.of(order));
+    }
+
+    public void invalidateAfterCommit(Collection<Order> orders) {
+        List<OrderCacheInvalidation> invalidations = orders.stream()
+                .map(order -> new OrderCacheInvalidation(order.getId(), order.getClientRef()))
+                .toList();
+        AfterCommit.run(() -> invalidations.forEach(invalidation -> {
+            evict(invalidation);
+            localInvalidations.increment();
+            try {
+                invalidationChannel.publish(invalidation);
+            } catch (RuntimeException e) {
+                // Other instances keep serving the old order until its TTL expires
+                log.warn("Could not broadcast cache invalidation for order {}: {}", invalidation.orderId(), e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Invalidation received from another instance
+     */
+    public void evictRemote(OrderCacheInvalidation invalidation) {
+        evict(invalidation);
+        remoteInvalidations.increment();
+    }
+
+    public void evict(OrderCacheInvalidation invalidation) {
+        byId.invalidate(invalidation.orderId());
+        byClientRef.invalidate(invalidation.clientRef());
+    }
+
+    private <K> Cache<K, OrderSummary> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    private static Counter invalidationCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("wms.cache.invalidations")
+                .description("Orders invalidated in the order cache, by changes on this instance or another")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -1,65 +1,233 @@
 package lk.swiftlogistics.wms.service;
 
+import lk.swiftlogistics.wms.domain.DeliveryConfirmation;
 import lk.swiftlogistics.wms.domain.Driver;
 import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderEvent;
 import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.ArchivedOrderRepository;
 import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderAssignmentRepository;
+import lk.swiftlogistics.wms.repo.DriverSummary;
+import lk.swiftlogistics.wms.repo.OrderDeliveryRepository;
 import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.repo.OrderSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
+// Read-write by default. Pure reads are read-only: Hibernate skips flushing and entity snapshots,
+// and a configured read replica serves them (see ReadReplicaConfig).
+// Assignments, status and availability changes race with other dispatchers and drivers; ConflictRetry
+// runs each in its own transaction and retries it when a concurrent change got there first (@Version)
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class OrderService {
 
+    // Orders a driver still has to deliver
+    private static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.of(OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH);
+
+    private static final Comparator<OrderSummary> BY_DELIVERY_DATE =
+            Comparator.comparing(OrderSummary::deliveryDate).thenComparing(OrderSummary::id);
+
     private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
     private final DriverRepository driverRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderStatisticsService orderStatistics;
+    private final OrderLookupCache orderCache;
+    private final DispatchBoard dispatchBoard;
+    private final ConflictRetry conflictRetry;
+    private final OrderAssignmentRepository orderAssignmentRepository;
+    private final OrderDeliveryRepository orderDeliveryRepository;
+
+    // Tracking lookups, served from the order cache. No transaction of their own, so a hit needs no connection
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<OrderSummary> getOrderByClientRef(String clientRef) {
+        return orderCache.getByClientRef(clientRef,
+                key -> orderRepository.findWithDriverByClientRef(key).map(OrderSummary::of));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<OrderSummary> getOrderById(Long id) {
+        return orderCache.getById(id, key -> orderRepository.findWithDriverById(key).map(OrderSummary::of));
+    }
+
+    /**
+     * @param includeArchive also look among archived (long delivered) orders
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<OrderSummary> getOrderByClientRef(String clientRef, boolean includeArchive) {
+        Optional<OrderSummary> order = getOrderByClientRef(clientRef);
+        return order.isPresent() || !includeArchive ? order : archivedOrderRepository.findSummaryByClientRef(clientRef);
+    }
 
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    /**
+     * @param includeArchive also look among archived (long delivered) orders
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<OrderSummary> getOrderById(Long id, boolean includeArchive) {
+        Optional<OrderSummary> order = getOrderById(id);
+        return order.isPresent() || !includeArchive ? order : archivedOrderRepository.findSummaryById(id);
     }
 
-    public Optional<Order> getOrderByClientRef(String clientRef) {
-        return orderRepository.findByClientRef(clientRef);
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersByDriver(Long driverId) {
+        return orderRepository.findByAssignedDriverId(driverId);
     }
 
-    public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+    // Listings: one page after a cursor (null for the first page), or every remaining row streamed to a sink
+
+    @Transactional(readOnly = true)
+    public OrderPage getAllOrders(OrderCursor after, int limit) {
+        return OrderPage.of(orderRepository.findAllAfter(afterId(after), Limit.of(limit + 1)), limit);
     }
 
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    @Transactional(readOnly = true)
+    public void streamAllOrders(OrderCursor after, Consumer<OrderSummary> sink) {
+        stream(orderRepository.streamAllAfter(afterId(after)), sink);
     }
 
-    public List<Order> getOrdersByDeliveryDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return orderRepository.findByDeliveryDateBetween(startDate, endDate);
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByStatus(OrderStatus status, OrderCursor after, int limit) {
+        return OrderPage.of(orderRepository.findByStatusAfter(status, afterId(after), Limit.of(limit + 1)), limit);
     }
 
-    public List<Order> getOrdersByDeliveryDateRangeAndStatus(LocalDateTime startDate, LocalDateTime endDate, OrderStatus status) {
-        return orderRepository.findByDeliveryDateBetweenAndStatus(startDate, endDate, status);
+    @Transactional(readOnly = true)
+    public void streamOrdersByStatus(OrderStatus status, OrderCursor after, Consumer<OrderSummary> sink) {
+        stream(orderRepository.streamByStatusAfter(status, afterId(after)), sink);
     }
 
-    public List<Order> getUnassignedOrders() {
-        return orderRepository.findByAssignedDriverIsNull();
+    @Transactional(readOnly = true)
+    public OrderPage getUnassignedOrders(OrderCursor after, int limit) {
+        return OrderPage.of(orderRepository.findUnassignedAfter(afterId(after), Limit.of(limit + 1)), limit);
     }
 
-    public List<Order> getOrdersByDriver(Long driverId) {
-        return orderRepository.findByAssignedDriverId(driverId);
+    @Transactional(readOnly = true)
+    public void streamUnassignedOrders(OrderCursor after, Consumer<OrderSummary> sink) {
+        stream(orderRepository.streamUnassignedAfter(afterId(after)), sink);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByDriver(Long driverId, OrderCursor after, int limit) {
+        return OrderPage.of(orderRepository.findByDriverAfter(driverId, afterId(after), Limit.of(limit + 1)), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamOrdersByDriver(Long driverId, OrderCursor after, Consumer<OrderSummary> sink) {
+        stream(orderRepository.streamByDriverAfter(driverId, afterId(after)), sink);
+    }
+
+    /**
+     * @param status         optional
+     * @param includeArchive merge in archived orders due in the range; they are all DELIVERED
+     */
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByDeliveryDateRange(LocalDateTime startDate, LocalDateTime endDate, OrderStatus status,
+                                                  boolean includeArchive, OrderCursor after, int limit) {
+        LocalDateTime afterDate = after != null ? after.deliveryDate() : startDate;
+        Limit rows = Limit.of(limit + 1);
+        List<OrderSummary> orders = status != null
+                ? orderRepository.findByDeliveryDateAndStatusAfter(endDate, status, afterDate, afterId(after), rows)
+                : orderRepository.findByDeliveryDateAfter(endDate, afterDate, afterId(after), rows);
+        if (includesArchive(includeArchive, status)) {
+            orders = Stream.concat(orders.stream(),
+                            archivedOrderRepository.findByDeliveryDateAfter(endDate, afterDate, afterId(after), rows).stream())
+                    .sorted(BY_DELIVERY_DATE)
+                    .limit(limit + 1L)
+                    .toList();
+        }
+        return OrderPage.of(orders, limit);
+    }
+
+    /**
+     * @param status         optional
+     * @param includeArchive merge in archived orders due in the range; they are all DELIVERED
+     */
+    @Transactional(readOnly = true)
+    public void streamOrdersByDeliveryDateRange(LocalDateTime startDate, LocalDateTime endDate, OrderStatus status,
+                                                boolean includeArchive, OrderCursor after, Consumer<OrderSummary> sink) {
+        LocalDateTime afterDate = after != null ? after.deliveryDate() : startDate;
+        Stream<OrderSummary> orders = status != null
+                ? orderRepository.streamByDeliveryDateAndStatusAfter(endDate, status, afterDate, afterId(after))
+                : orderRepository.streamByDeliveryDateAfter(endDate, afterDate, afterId(after));
+        if (includesArchive(includeArchive, status)) {
+            merge(orders, archivedOrderRepository.streamByDeliveryDateAfter(endDate, afterDate, afterId(after)), sink);
+        } else {
+            stream(orders, sink);
+        }
+    }
+
+    private static boolean includesArchive(boolean includeArchive, OrderStatus status) {
+        return includeArchive && (status == null || status == OrderStatus.DELIVERED);
+    }
+
+    private static long afterId(OrderCursor after) {
+        return after != null ? after.id() : 0;
+    }
+
+    /**
+     * Rows are projections, not entities, so the persistence context stays empty however long the listing
+     */
+    private static void stream(Stream<OrderSummary> rows, Consumer<OrderSummary> sink) {
+        try (rows) {
+            rows.forEach(sink);
+        }
+    }
+
+    /**
+     * Interleave two listings that are each in (deliveryDate, id) order
+     */
+    private static void merge(Stream<OrderSummary> first, Stream<OrderSummary> second, Consumer<OrderSummary> sink) {
+        try (first; second) {
+            Iterator<OrderSummary> firstRows = first.iterator();
+            Iterator<OrderSummary> secondRows = second.iterator();
+            OrderSummary a = firstRows.hasNext() ? firstRows.next() : null;
+            OrderSummary b = secondRows.hasNext() ? secondRows.next() : null;
+            while (a != null || b != null) {
+                if (b == null || (a != null && BY_DELIVERY_DATE.compare(a, b) <= 0)) {
+                    sink.accept(a);
+                    a = firstRows.hasNext() ? firstRows.next() : null;
+                } else {
+                    sink.accept(b);
+                    b = secondRows.hasNext() ? secondRows.next() : null;
+                }
+            }
+        }
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Order assignDriverToOrder(Long orderId, Long driverId) {
+        return conflictRetry.execute("assign-driver", () -> assign(orderId, driverId));
+    }
+
+    private Order assign(Long orderId, Long driverId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
         
@@ -83,10 +251,26 @@ public class OrderService {
         
         log.info("Driver {} assigned to order {} and marked as unavailable", driver.getName(), order.getClientRef());
         
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        orderStatistics.recordAssigned(1, OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH);
+        orderCache.invalidateAfterCommit(saved);
+        dispatchBoard.orderChanged(saved);
+        dispatchBoard.driverChanged(driver);
+        eventPublisher.publishEvent(OrderEvent.of(OrderEvent.Type.ASSIGNED, saved, OrderStatus.RECEIVED));
+        return saved;
     }
 
-    public List<Order> bulkAssignDriver(List<Long> orderIds, Long driverId) {
+    /**
+     * Assign the driver to every listed order that is still RECEIVED and unassigned, in one UPDATE.
+     * The driver is marked unavailable only if at least one order was assigned.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkAssignment bulkAssignDriver(Collection<Long> orderIds, Long driverId) {
+        Set<Long> ids = new LinkedHashSet<>(orderIds);
+        return conflictRetry.execute("bulk-assign-driver", () -> bulkAssign(ids, driverId));
+    }
+
+    private BulkAssignment bulkAssign(Set<Long> orderIds, Long driverId) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
 
@@ -94,33 +278,45 @@ public class OrderService {
             throw new RuntimeException("Driver is not available for assignment");
         }
 
-        List<Order> orders = orderRepository.findAllById(orderIds);
-        List<Order> updatedOrders = new ArrayList<>();
+        // Claim the driver first, so this takes the driver's row lock before the orders' like a single assignment does
+        driver.setAvailable(false);
+        driverRepository.saveAndFlush(driver);
+
+        List<Order> assigned = orderAssignmentRepository.assignUnassigned(orderIds, driver, LocalDateTime.now());
+        BulkAssignment result = BulkAssignment.of(assigned, orderIds,
+                orderAssignmentRepository.findAssignmentStates(withoutAssigned(orderIds, assigned)));
 
-        for (Order order : orders) {
-            if (order.getStatus() == OrderStatus.RECEIVED && order.getAssignedDriver() == null) {
-                order.setAssignedDriver(driver);
-                order.setStatus(OrderStatus.READY_TO_DISPATCH);
-                updatedOrders.add(order);
-            }
+        if (assigned.isEmpty()) {
+            driver.setAvailable(true);
+            driverRepository.save(driver);
+            return result;
         }
 
-        if (updatedOrders.isEmpty()) {
-            throw new RuntimeException("No eligible orders found for assignment");
+        orderStatistics.recordAssigned(assigned.size(), OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH);
+        orderCache.invalidateAfterCommit(assigned);
+        dispatchBoard.ordersChanged(assigned);
+        dispatchBoard.driverChanged(driver);
+        log.info("Driver {} assigned to {} of {} orders and marked as unavailable", driver.getName(), assigned.size(), orderIds.size());
+
+        for (Order order : assigned) {
+            eventPublisher.publishEvent(OrderEvent.of(OrderEvent.Type.ASSIGNED, order, OrderStatus.RECEIVED));
         }
+        return result;
+    }
 
-        // Set driver as unavailable when assigned to orders
-        driver.setAvailable(false);
-        driverRepository.save(driver);
-        
-        orderRepository.saveAll(updatedOrders);
-        log.info("Driver {} assigned to {} orders and marked as unavailable", driver.getName(), updatedOrders.size());
-        
-        return updatedOrders;
+    private static List<Long> withoutAssigned(Set<Long> orderIds, List<Order> assigned) {
+        Set<Long> remaining = new LinkedHashSet<>(orderIds);
+        assigned.forEach(order -> remaining.remove(order.getId()));
+        return new ArrayList<>(remaining);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Order updateOrderStatus(Long orderId, OrderStatus newStatus) {
-        Order order = orderRepository.findById(orderId)
+        return conflictRetry.execute("update-status", () -> updateStatus(orderId, newStatus));
+    }
+
+    private Order updateStatus(Long orderId, OrderStatus newStatus) {
+        Order order = orderRepository.findWithDriverById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
 
         // Validate status transitions
@@ -128,41 +324,158 @@ public class OrderService {
             throw new RuntimeException("Invalid status transition from " + order.getStatus() + " to " + newStatus);
         }
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(newStatus);
         log.info("Order {} status updated to {}", order.getClientRef(), newStatus);
         
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        orderStatistics.recordStatusChange(1, previousStatus, newStatus);
+        orderCache.invalidateAfterCommit(saved);
+        dispatchBoard.orderChanged(saved);
+        eventPublisher.publishEvent(OrderEvent.of(
+                newStatus == OrderStatus.DELIVERED ? OrderEvent.Type.DELIVERED : OrderEvent.Type.STATUS_CHANGED,
+                saved, previousStatus));
+        return saved;
+    }
+
+    /**
+     * Deliver the confirmed orders the driver still has out, in one UPDATE, and record the idempotency key
+     * each was confirmed with. A key already recorded is reported, not applied again, so the driver app can
+     * resend a batch whose response it lost. The driver's availability is recomputed once, at the end.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public DeliveryBatch confirmDeliveries(Long driverId, List<Delivery> deliveries) {
+        return conflictRetry.execute("confirm-deliveries", () -> confirm(driverId, deliveries));
+    }
+
+    private DeliveryBatch confirm(Long driverId, List<Delivery> deliveries) {
+        Driver driver = driverRepository.findById(driverId)
+                .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
+
+        // Each order is delivered under the first key in the batch that is not recorded or already taken by
+        // another order; the other confirmations take their outcome from what happened to that one
+        Map<String, Long> recorded = orderDeliveryRepository.findConfirmedOrders(
+                deliveries.stream().map(Delivery::idempotencyKey).collect(Collectors.toSet()));
+        Map<Long, Delivery> candidates = new LinkedHashMap<>();
+        // Exactly the candidates' keys
+        Set<String> candidateKeys = new HashSet<>();
+        for (Delivery delivery : deliveries) {
+            if (!recorded.containsKey(delivery.idempotencyKey()) && !candidates.containsKey(delivery.orderId())
+                    && candidateKeys.add(delivery.idempotencyKey())) {
+                candidates.put(delivery.orderId(), delivery);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> delivered = orderDeliveryRepository.deliverAssigned(candidates.keySet(), driver, now);
+        Map<Long, DeliveryOutcome.Result> results = new HashMap<>();
+        delivered.forEach(order -> results.put(order.getId(), DeliveryOutcome.Result.DELIVERED));
+        classifyUndelivered(candidates, results, driverId);
+
+        List<DeliveryConfirmation> confirmations = delivered.stream()
+                .map(order -> confirmation(candidates.get(order.getId()), driverId, now))
+                .toList();
+        List<DeliveryConfirmation> taken = orderDeliveryRepository.insertIgnoringTakenKeys(confirmations);
+        if (!taken.isEmpty()) {
+            // Another batch recorded the key first, for another order: start over so it shows as reused
+            throw new OptimisticLockingFailureException("Idempotency key " + taken.get(0).getIdempotencyKey()
+                    + " was recorded by a concurrent confirmation");
+        }
+
+        if (!delivered.isEmpty()) {
+            orderStatistics.recordStatusChange(delivered.size(), OrderStatus.READY_TO_DISPATCH, OrderStatus.DELIVERED);
+            orderCache.invalidateAfterCommit(delivered);
+            dispatchBoard.ordersChanged(delivered);
+            for (Order order : delivered) {
+                eventPublisher.publishEvent(OrderEvent.of(OrderEvent.Type.DELIVERED, order, OrderStatus.READY_TO_DISPATCH));
+            }
+        }
+
+        if (!driver.isAvailable() && !hasActiveOrders(driverId)) {
+            driver.setAvailable(true);
+            driverRepository.save(driver);
+            dispatchBoard.driverChanged(driver);
+            log.info("Driver {} marked as available - no active orders remaining", driver.getName());
+        }
+        log.info("Driver {} confirmed {} deliveries, {} delivered", driver.getName(), deliveries.size(), delivered.size());
+
+        List<DeliveryOutcome> outcomes = deliveries.stream()
+                .map(delivery -> DeliveryOutcome.of(delivery, recorded, candidates, candidateKeys, results))
+                .toList();
+        return new DeliveryBatch(outcomes, delivered.size(), driver.isAvailable());
+    }
+
+    /**
+     * Why each candidate the UPDATE left alone was not delivered
+     */
+    private void classifyUndelivered(Map<Long, Delivery> candidates, Map<Long, DeliveryOutcome.Result> results,
+                                     Long driverId) {
+        List<Long> undelivered = candidates.keySet().stream().filter(id -> !results.containsKey(id)).toList();
+        if (undelivered.isEmpty()) {
+            return;
+        }
+        // Re-read after the UPDATE, which waited for any batch delivering the same orders to commit
+        Map<String, Long> recorded = orderDeliveryRepository.findConfirmedOrders(
+                undelivered.stream().map(id -> candidates.get(id).idempotencyKey()).toList());
+        for (OrderAssignmentRepository.AssignmentState state : orderAssignmentRepository.findAssignmentStates(undelivered)) {
+            DeliveryOutcome.Result result;
+            if (!driverId.equals(state.driverId())) {
+                result = DeliveryOutcome.Result.NOT_ASSIGNED;
+            } else if (state.status() != OrderStatus.DELIVERED) {
+                result = DeliveryOutcome.Result.WRONG_STATUS;
+            } else if (state.id().equals(recorded.get(candidates.get(state.id()).idempotencyKey()))) {
+                result = DeliveryOutcome.Result.ALREADY_CONFIRMED;
+            } else {
+                result = DeliveryOutcome.Result.ALREADY_DELIVERED;
+            }
+            results.put(state.id(), result);
+        }
+        undelivered.forEach(id -> results.putIfAbsent(id, DeliveryOutcome.Result.NOT_FOUND));
+    }
+
+    private static DeliveryConfirmation confirmation(Delivery delivery, Long driverId, LocalDateTime confirmedAt) {
+        DeliveryConfirmation confirmation = new DeliveryConfirmation();
+        confirmation.setIdempotencyKey(delivery.idempotencyKey());
+        confirmation.setOrderId(delivery.orderId());
+        confirmation.setDriverId(driverId);
+        confirmation.setDeliveryNotes(delivery.deliveryNotes());
+        confirmation.setDeliveryProof(delivery.deliveryProof());
+        confirmation.setConfirmedAt(confirmedAt);
+        return confirmation;
+    }
+
+    /**
+     * Re-send the assignment notification for an order to its driver
+     * Assignments are announced automatically; this covers a driver app that missed it
+     */
+    public Order notifyDriverAssignment(Long orderId, Long driverId) {
+        Order order = orderRepository.findWithDriverById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        
+        if (order.getAssignedDriver() == null || !order.getAssignedDriver().getId().equals(driverId)) {
+            throw new RuntimeException("Order is not assigned to this driver");
+        }
+        
+        eventPublisher.publishEvent(OrderEvent.of(OrderEvent.Type.ASSIGNED, order, OrderStatus.RECEIVED));
+        return order;
     }
 
     public Order updateOrderDeliveryDate(Long orderId, LocalDateTime newDeliveryDate) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDriverById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
 
         order.setDeliveryDate(newDeliveryDate);
         log.info("Order {} delivery date updated to {}", order.getClientRef(), newDeliveryDate);
         
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        orderCache.invalidateAfterCommit(saved);
+        dispatchBoard.orderChanged(saved);
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getOrderStatistics() {
-        List<Order> allOrders = orderRepository.findAll();
-        
-        long totalOrders = allOrders.size();
-        long receivedOrders = allOrders.stream().filter(o -> o.getStatus() == OrderStatus.RECEIVED).count();
-        long readyToDispatchOrders = allOrders.stream().filter(o -> o.getStatus() == OrderStatus.READY_TO_DISPATCH).count();
-        long deliveredOrders = allOrders.stream().filter(o -> o.getStatus() == OrderStatus.DELIVERED).count();
-        long unassignedOrders = allOrders.stream().filter(o -> o.getAssignedDriver() == null).count();
-        long highPriorityOrders = allOrders.stream().filter(o -> "High".equals(o.getPriority())).count();
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalOrders", totalOrders);
-        stats.put("receivedOrders", receivedOrders);
-        stats.put("readyToDispatchOrders", readyToDispatchOrders);
-        stats.put("deliveredOrders", deliveredOrders);
-        stats.put("unassignedOrders", unassignedOrders);
-        stats.put("highPriorityOrders", highPriorityOrders);
-        
-        return stats;
+        return orderStatistics.getOrderStatistics();
     }
 
     private boolean isValidStatusTransition(OrderStatus currentStatus, OrderStatus newStatus) {
@@ -174,17 +487,21 @@ public class OrderService {
     }
 
     // Driver management methods
+    @Transactional(readOnly = true)
     public List<Driver> getAllDrivers() {
         return driverRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Driver> getAvailableDrivers() {
         return driverRepository.findByAvailable(true);
     }
 
     public Driver createDriver(Driver driver) {
         log.info("Creating new driver: {}", driver.getName());
-        return driverRepository.save(driver);
+        Driver saved = driverRepository.save(driver);
+        dispatchBoard.driverChanged(saved);
+        return saved;
     }
 
     public Driver updateDriver(Driver driver) {
@@ -195,63 +512,60 @@ public class OrderService {
         existingDriver.setLicenseNumber(driver.getLicenseNumber());
         existingDriver.setPhoneNumber(driver.getPhoneNumber());
         existingDriver.setEmail(driver.getEmail());
+        existingDriver.setWeightCapacity(driver.getWeightCapacity());
         if (driver.isAvailable() != existingDriver.isAvailable()) {
             existingDriver.setAvailable(driver.isAvailable());
         }
         
         log.info("Driver {} updated", existingDriver.getName());
-        return driverRepository.save(existingDriver);
+        Driver saved = driverRepository.save(existingDriver);
+        dispatchBoard.driverChanged(saved);
+        return saved;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Driver updateDriverAvailability(Long driverId, boolean available) {
+        return conflictRetry.execute("update-availability", () -> updateAvailability(driverId, available));
+    }
+
+    private Driver updateAvailability(Long driverId, boolean available) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
         
         driver.setAvailable(available);
         log.info("Driver {} availability updated to {}", driver.getName(), available);
         
-        return driverRepository.save(driver);
+        Driver saved = driverRepository.save(driver);
+        dispatchBoard.driverChanged(saved);
+        return saved;
     }
 
     public void deleteDriver(Long driverId) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
         
-        // Check if driver has active orders
-        List<Order> activeOrders = orderRepository.findByAssignedDriverIdAndStatusIn(driverId, 
-                List.of(OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH));
-        
-        if (!activeOrders.isEmpty()) {
+        if (hasActiveOrders(driverId)) {
             throw new RuntimeException("Cannot delete driver with active orders");
         }
         
         driverRepository.deleteById(driverId);
+        dispatchBoard.driverRemoved(driverId);
         log.info("Driver {} deleted", driver.getName());
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getDriverStatistics() {
-        List<Driver> allDrivers = driverRepository.findAll();
-        
-        long totalDrivers = allDrivers.size();
-        long availableDrivers = allDrivers.stream().filter(Driver::isAvailable).count();
-        long busyDrivers = totalDrivers - availableDrivers;
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalDrivers", totalDrivers);
-        stats.put("availableDrivers", availableDrivers);
-        stats.put("busyDrivers", busyDrivers);
-        
-        return stats;
+        return orderStatistics.getDriverStatistics();
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getDriverPerformance(Long driverId) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
         
-        List<Order> driverOrders = orderRepository.findByAssignedDriverId(driverId);
-        
-        long totalDeliveries = driverOrders.stream().filter(o -> o.getStatus() == OrderStatus.DELIVERED).count();
-        long pendingDeliveries = driverOrders.stream().filter(o -> o.getStatus() == OrderStatus.READY_TO_DISPATCH).count();
+        long totalDeliveries = orderRepository.countByAssignedDriverIdAndStatus(driverId, OrderStatus.DELIVERED)
+                + archivedOrderRepository.countByDriverId(driverId);
+        long pendingDeliveries = orderRepository.countByAssignedDriverIdAndStatus(driverId, OrderStatus.READY_TO_DISPATCH);
         
         Map<String, Object> performance = new HashMap<>();
         performance.put("driverName", driver.getName());
@@ -262,6 +576,7 @@ public class OrderService {
         return performance;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Driver> getDriverById(Long id) {
         return driverRepository.findById(id);
     }
@@ -270,17 +585,29 @@ public class OrderService {
      * Check if driver has any active (non-delivered) orders
      * Used to determine if driver should be marked as available
      */
+    @Transactional(readOnly = true)
     public boolean hasActiveOrders(Long driverId) {
-        List<Order> activeOrders = orderRepository.findByAssignedDriverIdAndStatusIn(driverId, 
-                List.of(OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH));
-        return !activeOrders.isEmpty();
+        return orderRepository.existsByAssignedDriverIdAndStatusIn(driverId, ACTIVE_STATUSES);
+    }
+
+    /**
+     * All drivers with their active order counts, in a single query
+     */
+    @Transactional(readOnly = true)
+    public List<DriverSummary> getDriverSummaries() {
+        return driverRepository.findDriverSummaries(ACTIVE_STATUSES);
     }
 
     /**
      * Automatically update driver availability based on their order status
      * Driver becomes available when all assigned orders are delivered
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Driver updateDriverAvailabilityBasedOnOrders(Long driverId) {
+        return conflictRetry.execute("release-driver", () -> releaseIfIdle(driverId));
+    }
+
+    private Driver releaseIfIdle(Long driverId) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found with id: " + driverId));
         
@@ -289,9 +616,110 @@ public class OrderService {
         if (!hasActiveOrders && !driver.isAvailable()) {
             driver.setAvailable(true);
             driverRepository.save(driver);
+            dispatchBoard.driverChanged(driver);
             log.info("Driver {} marked as available - no active orders remaining", driver.getName());
         }
         
         return driver;
     }
-}
\ No newline at end of file
+
+    /**
+     * Outcome of a bulk assignment for each requested order
+     *
+     * @param alreadyAssigned orders that already had a driver
+     * @param wrongStatus unassigned orders no longer in RECEIVED
+     * @param notFound ids with no current order (including archived orders)
+     */
+    public record BulkAssignment(List<Order> assigned, List<Long> alreadyAssigned, List<Long> wrongStatus,
+                                 List<Long> notFound) {
+
+        static BulkAssignment of(List<Order> assigned, Collection<Long> requested,
+                                 List<OrderAssignmentRepository.AssignmentState> others) {
+            Set<Long> found = new HashSet<>();
+            List<Long> alreadyAssigned = new ArrayList<>();
+            List<Long> wrongStatus = new ArrayList<>();
+            assigned.forEach(order -> found.add(order.getId()));
+            for (OrderAssignmentRepository.AssignmentState state : others) {
+                found.add(state.id());
+                (state.assigned() ? alreadyAssigned : wrongStatus).add(state.id());
+            }
+            List<Long> notFound = requested.stream().filter(id -> !found.contains(id)).toList();
+            alreadyAssigned.sort(null);
+            wrongStatus.sort(null);
+            return new BulkAssignment(assigned, alreadyAssigned, wrongStatus, notFound);
+        }
+    }
+
+    /**
+     * One delivery confirmed from the driver app
+     *
+     * @param idempotencyKey generated by the app for this confirmation, and sent again with it on a retry
+     */
+    public record Delivery(String idempotencyKey, Long orderId, String deliveryNotes, String deliveryProof) {
+    }
+
+    public record DeliveryOutcome(String idempotencyKey, Long orderId, Result result) {
+
+        public enum Result {
+            DELIVERED,
+            // The key was recorded for this order before: a resend
+            ALREADY_CONFIRMED,
+            // Delivered under another key
+            ALREADY_DELIVERED,
+            // Not assigned to the confirming driver
+            NOT_ASSIGNED,
+            // Not yet READY_TO_DISPATCH
+            WRONG_STATUS,
+            // No current order with the id (including archived orders)
+            NOT_FOUND,
+            // The key was recorded for another order
+            KEY_REUSED
+        }
+
+        /**
+         * @param candidateKeys the idempotency keys of the candidates
+         */
+        static DeliveryOutcome of(Delivery delivery, Map<String, Long> recorded, Map<Long, Delivery> candidates,
+                                  Set<String> candidateKeys, Map<Long, Result> results) {
+            Long recordedOrder = recorded.get(delivery.idempotencyKey());
+            Delivery applied = candidates.get(delivery.orderId());
+            Result result;
+            if (recordedOrder != null) {
+                result = recordedOrder.equals(delivery.orderId()) ? Result.ALREADY_CONFIRMED : Result.KEY_REUSED;
+            } else if (applied != null && applied.idempotencyKey().equals(delivery.idempotencyKey())) {
+                result = results.get(delivery.orderId());
+            } else if (candidateKeys.contains(delivery.idempotencyKey())) {
+                result = Result.KEY_REUSED;
+            } else {
+                // Another key in the batch confirmed the same order
+                Result appliedResult = results.get(delivery.orderId());
+                result = appliedResult == Result.DELIVERED ? Result.ALREADY_DELIVERED : appliedResult;
+            }
+            return new DeliveryOutcome(delivery.idempotencyKey(), delivery.orderId(), result);
+        }
+    }
+
+    /**
+     * @param outcomes        one per confirmation, in request order
+     * @param driverAvailable after the batch: true once the driver has no active orders left
+     */
+    public record DeliveryBatch(List<DeliveryOutcome> outcomes, int delivered, boolean driverAvailable) {
+    }
+
+    /**
+     * @param nextCursor cursor for the following page, null on the last page
+     */
+    public record OrderPage(List<OrderSummary> orders, String nextCursor) {
+
+        /**
+         * @param rows fetched with limit + 1, so an extra row means there is another page
+         */
+        public static OrderPage of(List<OrderSummary> rows, int limit) {
+            if (rows.size() <= limit) {
+                return new OrderPage(rows, null);
+            }
+            List<OrderSummary> orders = rows.subList(0, limit);
+            return new OrderPage(orders, OrderCursor.after(orders.get(limit - 1)).encode());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package lk.swiftlogistics.wms.service;
+
+import jakarta.annotation.PostConstruct;
+import lk.swiftlogistics.wms.config.StatsProperties;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.ArchivedOrderRepository;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dashboard statistics.
+ *
+ * By default each request runs one grouped aggregate query. With wms.stats.in-memory the order counts
+ * are held in counters that order writes adjust after commit, so a request costs O(1); the counters are
+ * replaced by the aggregate every reconcile interval, which bounds any drift from writes that raced a
+ * reconcile or bypassed this service.
+ * Counts include archived orders, taken from the archive's per-month totals rather than counted.
+ */
+@Service
+@Slf4j
+public class OrderStatisticsService {
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final DriverRepository driverRepository;
+    private final StatsProperties statsProperties;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate primaryReads;
+
+    private final AtomicLong total = new AtomicLong();
+    private final Map<OrderStatus, AtomicLong> byStatus = new EnumMap<>(OrderStatus.class);
+    private final AtomicLong unassigned = new AtomicLong();
+    private final AtomicLong highPriority = new AtomicLong();
+    private volatile boolean countersReady;
+
+    public OrderStatisticsService(OrderRepository orderRepository,
+                                  ArchivedOrderRepository archivedOrderRepository,
+                                  DriverRepository driverRepository,
+                                  StatsProperties statsProperties,
+                                  TaskScheduler taskScheduler,
+                                  PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.driverRepository = driverRepository;
+        this.statsProperties = statsProperties;
+        this.taskScheduler = taskScheduler;
+        // Read-write, so reconciling reads the primary: counters set from a lagging replica would undo recent writes
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    void scheduleReconcile() {
+        if (statsProperties.isInMemory()) {
+            taskScheduler.scheduleWithFixedDelay(this::reconcile, statsProperties.getReconcileInterval());
+        }
+    }
+
+    public Map<String, Object> getOrderStatistics() {
+        if (countersReady) {
+            return toMap(total.get(), byStatus(OrderStatus.RECEIVED), byStatus(OrderStatus.READY_TO_DISPATCH),
+                    byStatus(OrderStatus.DELIVERED), unassigned.get(), highPriority.get());
+        }
+        Snapshot snapshot = aggregate();
+        return toMap(snapshot.total(), snapshot.byStatus().get(OrderStatus.RECEIVED),
+                snapshot.byStatus().get(OrderStatus.READY_TO_DISPATCH), snapshot.byStatus().get(OrderStatus.DELIVERED),
+                snapshot.unassigned(), snapshot.highPriority());
+    }
+
+    public Map<String, Object> getDriverStatistics() {
+        long availableDrivers = driverRepository.countByAvailable(true);
+        long busyDrivers = driverRepository.countByAvailable(false);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalDrivers", availableDrivers + busyDrivers);
+        stats.put("availableDrivers", availableDrivers);
+        stats.put("busyDrivers", busyDrivers);
+        return stats;
+    }
+
+    /**
+     * Newly inserted orders, counted once the current transaction commits
+     */
+    public void recordCreated(Collection<Order> orders) {
+        if (!statsProperties.isInMemory() || orders.isEmpty()) {
+            return;
+        }
+        long unassignedCount = orders.stream().filter(order -> order.getAssignedDriver() == null).count();
+        long highPriorityCount = orders.stream().filter(order -> "High".equals(order.getPriority())).count();
+        Map<OrderStatus, Long> statusCounts = new EnumMap<>(OrderStatus.class);
+        orders.forEach(order -> statusCounts.merge(order.getStatus(), 1L, Long::sum));
+
+        AfterCommit.run(() -> {
+            total.addAndGet(orders.size());
+            statusCounts.forEach((status, count) -> byStatus.get(status).addAndGet(count));
+            unassigned.addAndGet(unassignedCount);
+            highPriority.addAndGet(highPriorityCount);
+        });
+    }
+
+    /**
+     * Unassigned orders that were given a driver, moving from one status to another
+     */
+    public void recordAssigned(int count, OrderStatus from, OrderStatus to) {
+        if (!statsProperties.isInMemory() || count == 0) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            unassigned.addAndGet(-count);
+            byStatus.get(from).addAndGet(-count);
+            byStatus.get(to).addAndGet(count);
+        });
+    }
+
+    public void recordStatusChange(int count, OrderStatus from, OrderStatus to) {
+        if (!statsProperties.isInMemory() || count == 0 || from == to) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            byStatus.get(from).addAndGet(-count);
+            byStatus.get(to).addAndGet(count);
+        });
+    }
+
+    /**
+     * Replace the counters with a fresh aggregate
+     */
+    public void reconcile() {
+        Snapshot snapshot = primaryReads.execute(status -> aggregate());
+        long drift = Math.abs(total.getAndSet(snapshot.total()) - snapshot.total());
+        for (OrderStatus status : OrderStatus.values()) {
+            long actual = snapshot.byStatus().get(status);
+            drift += Math.abs(byStatus.get(status).getAndSet(actual) - actual);
+        }
+        drift += Math.abs(unassigned.getAndSet(snapshot.unassigned()) - snapshot.unassigned());
+        drift += Math.abs(highPriority.getAndSet(snapshot.highPriority()) - snapshot.highPriority());
+
+        if (countersReady && drift > 0) {
+            log.info("Order statistics counters were off by {} and have been reconciled", drift);
+        }
+        countersReady = true;
+    }
+
+    private Snapshot aggregate() {
+        List<OrderRepository.OrderCount> counts = orderRepository.countByStatusAssignmentAndPriority();
+        Map<OrderStatus, Long> statusCounts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            statusCounts.put(status, 0L);
+        }
+        long totalCount = 0;
+        long unassignedCount = 0;
+        long highPriorityCount = 0;
+        for (OrderRepository.OrderCount count : counts) {
+            totalCount += count.getOrders();
+            statusCounts.merge(count.getStatus(), count.getOrders(), Long::sum);
+            if (count.isUnassigned()) {
+                unassignedCount += count.getOrders();
+            }
+            if (count.isHighPriority()) {
+                highPriorityCount += count.getOrders();
+            }
+        }
+        // Archived orders are all delivered, and were assigned
+        ArchivedOrderRepository.ArchivedCount archived = archivedOrderRepository.countArchived();
+        totalCount += archived.getOrders();
+        statusCounts.merge(OrderStatus.DELIVERED, archived.getOrders(), Long::sum);
+        highPriorityCount += archived.getHighPriority();
+        return new Snapshot(totalCount, statusCounts, unassignedCount, highPriorityCount);
+    }
+
+    private long byStatus(OrderStatus status) {
+        return byStatus.get(status).get();
+    }
+
+    private static Map<String, Object> toMap(long totalOrders, long receivedOrders, long readyToDispatchOrders,
+                                             long deliveredOrders, long unassignedOrders, long highPriorityOrders) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalOrders", totalOrders);
+        stats.put("receivedOrders", receivedOrders);
+        stats.put("readyToDispatchOrders", readyToDispatchOrders);
+        stats.put("deliveredOrders", deliveredOrders);
+        stats.put("unassignedOrders", unassignedOrders);
+        stats.put("highPriorityOrders", highPriorityOrders);
+        return stats;
+    }
+
+    private record Snapshot(long total, Map<OrderStatus, Long> byStatus, long unassigned, long highPriority) {
+    }
+}
@@ -0,0 +1,48 @@
+package lk.swiftlogistics.wms.service;
+
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used set of client references that have already been ingested.
+ * Lets redelivered or duplicate CMS messages be dropped without touching the database.
+ * A miss proves nothing (the reference may have been evicted), so the database insert
+ * still guards uniqueness with ON CONFLICT DO NOTHING.
+ */
+@Component
+public class RecentClientRefIndex {
+
+    private final Map<String, Boolean> recent;
+
+    public RecentClientRefIndex(IngestionProperties ingestionProperties) {
+        int capacity = ingestionProperties.getDedupCapacity();
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String clientRef) {
+        return recent.get(clientRef) != null;
+    }
+
+    /**
+     * Only call once the orders are committed; remembering an uncommitted reference would
+     * make a redelivery after a rollback look like a duplicate.
+     */
+    public synchronized void addAll(Collection<String> clientRefs) {
+        for (String clientRef : clientRefs) {
+            recent.put(clientRef, Boolean.TRUE);
+        }
+    }
+
+    public synchronized int size() {
+        return recent.size();
+    }
+}
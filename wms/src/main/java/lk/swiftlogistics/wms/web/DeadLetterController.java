@@ -0,0 +1,58 @@
+package lk.swiftlogistics.wms.web;
+
+import lk.swiftlogistics.wms.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://localhost:5174", "http://127.0.0.1:3000", "http://127.0.0.1:5173", "http://127.0.0.1:5174"})
+@Slf4j
+public class DeadLetterController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final DeadLetterService deadLetterService;
+
+    /**
+     * List dead-lettered order messages with their failure reason, oldest first
+     */
+    @GetMapping
+    public ResponseEntity<?> getDeadLetters(@RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<DeadLetterService.DeadLetter> deadLetters = deadLetterService.getDeadLetters(clamp(limit));
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "totalDeadLetters", deadLetterService.countDeadLetters(),
+                "deadLetters", deadLetters
+            ));
+        } catch (Exception e) {
+            log.error("Error reading dead letters: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to read dead letters: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Send up to limit dead-lettered orders back through ingestion, e.g. after fixing the cause
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<?> replayDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        try {
+            int replayed = deadLetterService.replay(clamp(limit));
+            return ResponseEntity.ok(Map.of("success", true, "replayed", replayed));
+        } catch (Exception e) {
+            log.error("Error replaying dead letters: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to replay dead letters: " + e.getMessage()));
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -1,12 +1,18 @@
 package lk.swiftlogistics.wms.web;
 
+import lk.swiftlogistics.wms.domain.DeliveryConfirmation;
 import lk.swiftlogistics.wms.domain.Order;
 import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import lk.swiftlogistics.wms.service.OrderConflictException;
 import lk.swiftlogistics.wms.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -20,7 +26,10 @@ import java.util.Map;
 @Slf4j
 public class DriverAppController {
 
+    private static final int MAX_BATCH_CONFIRMATIONS = 1_000;
+
     private final OrderService orderService;
+    private final DriverEventHub driverEventHub;
 
     /**
      * Get all drivers with their availability status
@@ -29,19 +38,16 @@ public class DriverAppController {
     @GetMapping("/drivers")
     public ResponseEntity<?> getAllDrivers() {
         try {
-            List<Map<String, Object>> driverList = orderService.getAllDrivers().stream()
+            List<Map<String, Object>> driverList = orderService.getDriverSummaries().stream()
                 .map(driver -> {
                     Map<String, Object> driverMap = new HashMap<>();
-                    driverMap.put("driverId", driver.getId());
-                    driverMap.put("name", driver.getName());
-                    driverMap.put("licenseNumber", driver.getLicenseNumber());
-                    driverMap.put("phoneNumber", driver.getPhoneNumber());
-                    driverMap.put("email", driver.getEmail());
-                    driverMap.put("available", driver.isAvailable());
-                    driverMap.put("activeOrders", orderService.hasActiveOrders(driver.getId()) ? 
-                        orderService.getOrdersByDriver(driver.getId()).stream()
-                            .filter(order -> order.getStatus() != OrderStatus.DELIVERED)
-                            .count() : 0);
+                    driverMap.put("driverId", driver.id());
+                    driverMap.put("name", driver.name());
+                    driverMap.put("licenseNumber", driver.licenseNumber());
+                    driverMap.put("phoneNumber", driver.phoneNumber());
+                    driverMap.put("email", driver.email());
+                    driverMap.put("available", driver.available());
+                    driverMap.put("activeOrders", driver.activeOrders());
                     return driverMap;
                 })
                 .toList();
@@ -110,8 +116,24 @@ public class DriverAppController {
     }
 
     /**
-     * Notify driver app when a new order is assigned
-     * WMS will call this internally when driver is assigned
+     * Push channel: the driver's order events (ASSIGNED, STATUS_CHANGED, DELIVERED) as server-sent events,
+     * sent as soon as they commit, with a comment line as heartbeat. Load the orders once from
+     * /driver/{driverId}/orders, then apply the events; a reconnecting EventSource sends Last-Event-ID and
+     * gets the events it missed, or a resync event if it has to reload the orders instead.
+     */
+    @GetMapping(path = "/driver/{driverId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> driverEvents(
+            @PathVariable Long driverId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (orderService.getDriverById(driverId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(driverEventHub.subscribe(driverId, lastEventId));
+    }
+
+    /**
+     * Re-send the new assignment notification to the driver app
+     * Assignments are published to the notifications queue automatically; this is a manual resend
      */
     @PostMapping("/driver/{driverId}/notify-assignment")
     public ResponseEntity<?> notifyDriverAssignment(
@@ -120,9 +142,8 @@ public class DriverAppController {
         try {
             Long orderId = Long.valueOf(assignmentData.get("orderId").toString());
             
-            // Get the order details
-            Order order = orderService.getOrderById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+            // Publish the assignment again on the notifications queue
+            Order order = orderService.notifyDriverAssignment(orderId, driverId);
             
             // Prepare notification data for driver app
             Map<String, Object> notification = new HashMap<>();
@@ -141,11 +162,6 @@ public class DriverAppController {
             
             log.info("Assignment notification sent to driver {} for order {}", driverId, orderId);
             
-            // In a real implementation, you would:
-            // 1. Send push notification to driver app
-            // 2. Store notification in driver notification table
-            // 3. Use WebSocket or SSE for real-time updates
-            
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Assignment notification sent to driver",
@@ -175,10 +191,10 @@ public class DriverAppController {
             String deliveryProof = deliveryData.getOrDefault("deliveryProof", "").toString(); // Could be photo URL, signature, etc.
             
             // Verify that the order is assigned to this driver
-            Order order = orderService.getOrderById(orderId)
+            OrderSummary order = orderService.getOrderById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
             
-            if (order.getAssignedDriver() == null || !order.getAssignedDriver().getId().equals(driverId)) {
+            if (!driverId.equals(order.driverId())) {
                 return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
                     "error", "Order is not assigned to this driver"
@@ -206,6 +222,11 @@ public class DriverAppController {
                 "deliveryProof", deliveryProof
             ));
             
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
         } catch (Exception e) {
             log.error("Error confirming delivery by driver {}: {}", driverId, e.getMessage());
             return ResponseEntity.badRequest().body(Map.of(
@@ -214,4 +235,82 @@ public class DriverAppController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Driver app confirms a batch of deliveries, e.g. a whole route once back in coverage
+     * Each confirmation carries an idempotency key the app generated for it, so resending a batch
+     * whose response was lost reports ALREADY_CONFIRMED instead of failing or delivering twice
+     */
+    @PostMapping("/driver/{driverId}/confirm-deliveries")
+    public ResponseEntity<?> confirmDeliveries(
+            @PathVariable Long driverId,
+            @RequestBody BatchConfirmationRequest request) {
+        String invalid = validate(request);
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", invalid
+            ));
+        }
+        try {
+            OrderService.DeliveryBatch batch = orderService.confirmDeliveries(driverId, request.confirmations());
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "driverId", driverId,
+                "results", batch.outcomes(),
+                "delivered", batch.delivered(),
+                "driverAvailable", batch.driverAvailable()
+            ));
+
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        } catch (Exception e) {
+            log.error("Error confirming deliveries by driver {}: {}", driverId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", "Failed to confirm deliveries: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * @return what is wrong with the request, or null
+     */
+    private static String validate(BatchConfirmationRequest request) {
+        List<OrderService.Delivery> confirmations = request.confirmations();
+        if (confirmations == null || confirmations.isEmpty()) {
+            return "confirmations are required";
+        }
+        if (confirmations.size() > MAX_BATCH_CONFIRMATIONS) {
+            return "At most " + MAX_BATCH_CONFIRMATIONS + " confirmations per request";
+        }
+        for (OrderService.Delivery delivery : confirmations) {
+            if (delivery == null || delivery.orderId() == null) {
+                return "Every confirmation needs an orderId";
+            }
+            if (delivery.idempotencyKey() == null || delivery.idempotencyKey().isBlank()
+                    || delivery.idempotencyKey().length() > DeliveryConfirmation.MAX_KEY_LENGTH) {
+                return "Every confirmation needs an idempotencyKey of at most "
+                        + DeliveryConfirmation.MAX_KEY_LENGTH + " characters";
+            }
+            if (isTooLong(delivery.deliveryNotes()) || isTooLong(delivery.deliveryProof())) {
+                return "deliveryNotes and deliveryProof are limited to " + DeliveryConfirmation.MAX_TEXT_LENGTH + " characters";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTooLong(String text) {
+        return text != null && text.length() > DeliveryConfirmation.MAX_TEXT_LENGTH;
+    }
+
+    /**
+     * Body of POST /driver/{driverId}/confirm-deliveries
+     */
+    public record BatchConfirmationRequest(List<OrderService.Delivery> confirmations) {
+    }
+}
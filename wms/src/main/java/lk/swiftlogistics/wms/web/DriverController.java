@@ -1,8 +1,11 @@
 package lk.swiftlogistics.wms.web;
 
 import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.service.DispatchBoard;
+import lk.swiftlogistics.wms.service.OrderConflictException;
 import lk.swiftlogistics.wms.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +19,7 @@ import java.util.Map;
 public class DriverController {
 
     private final OrderService orderService;
+    private final DispatchBoard dispatchBoard;
 
     @GetMapping
     public ResponseEntity<List<Driver>> getAllDrivers() {
@@ -24,6 +28,9 @@ public class DriverController {
 
     @GetMapping("/available")
     public ResponseEntity<List<Driver>> getAvailableDrivers() {
+        if (dispatchBoard.isReady()) {
+            return ResponseEntity.ok(dispatchBoard.availableDrivers());
+        }
         return ResponseEntity.ok(orderService.getAvailableDrivers());
     }
 
@@ -80,6 +87,8 @@ public class DriverController {
             }
             Driver updatedDriver = orderService.updateDriverAvailability(id, available);
             return ResponseEntity.ok(updatedDriver);
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
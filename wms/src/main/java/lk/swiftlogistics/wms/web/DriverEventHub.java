@@ -0,0 +1,239 @@
+package lk.swiftlogistics.wms.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lk.swiftlogistics.wms.config.DriverPushProperties;
+import lk.swiftlogistics.wms.domain.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes committed order events to the driver app over server-sent events, one stream per connection,
+ * each receiving the events of its driver. Replaces polling the driver's order list.
+ *
+ * An open stream costs a connection and an emitter, no thread: events are written by a few fan-out
+ * threads, and one scheduled heartbeat covers every stream. Each event carries an id that only grows,
+ * across restarts too (it starts from the clock). The last replayCapacity events of each driver are kept,
+ * so a reconnecting app sends Last-Event-ID and gets what it missed; if it is further behind than that,
+ * or last connected before this instance started, it gets a resync event and should reload its orders.
+ *
+ * Events reach the streams held by the instance that committed them. With several instances behind a
+ * load balancer, route each driver's stream and writes consistently or have the app also poll rarely.
+ */
+@Component
+@Slf4j
+public class DriverEventHub {
+
+    static final String RESYNC = "resync";
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+
+    private final DriverPushProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final Map<Long, DriverChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong lastId;
+    private final long startId;
+    private final ExecutorService[] fanOut;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public DriverEventHub(DriverPushProperties properties,
+                          ObjectMapper objectMapper,
+                          TaskScheduler taskScheduler,
+                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+        // Microseconds since the epoch: ahead of every id handed out before a restart, unless those averaged
+        // over a thousand events a millisecond
+        this.lastId = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+        this.startId = lastId.get();
+        this.fanOut = new ExecutorService[Math.max(1, properties.getFanOutThreads())];
+        for (int i = 0; i < fanOut.length; i++) {
+            String name = "driver-push-" + i;
+            fanOut[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Gauge.builder("wms.driver-push.connections", connections, AtomicInteger::get)
+                .description("Open driver app event streams")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void scheduleHeartbeat() {
+        taskScheduler.scheduleWithFixedDelay(this::heartbeat, properties.getHeartbeatInterval());
+    }
+
+    @PreDestroy
+    void close() {
+        channels.values().forEach(DriverChannel::completeAll);
+        for (ExecutorService executor : fanOut) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Open a stream of the driver's order events
+     *
+     * @param lastEventId the Last-Event-ID the app reconnected with, or null on a first connection
+     */
+    public SseEmitter subscribe(Long driverId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getConnectionTimeout().toMillis());
+        DriverChannel channel = channel(driverId);
+        emitter.onCompletion(() -> channel.remove(emitter));
+        emitter.onTimeout(() -> channel.remove(emitter));
+        emitter.onError(e -> channel.remove(emitter));
+        channel.subscribe(emitter, lastEventId);
+        return emitter;
+    }
+
+    /**
+     * Once committed: each event is kept for replay even when the driver has no stream open
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (event.driverId() == null) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event for order {}", event.type(), event.orderId(), e);
+            return;
+        }
+        channel(event.driverId()).publish(event.type().name(), json);
+    }
+
+    int connectionCount() {
+        return connections.get();
+    }
+
+    private DriverChannel channel(Long driverId) {
+        return channels.computeIfAbsent(driverId, id -> new DriverChannel(fanOut[(int) Math.floorMod(id, (long) fanOut.length)]));
+    }
+
+    private void heartbeat() {
+        for (DriverChannel channel : channels.values()) {
+            channel.heartbeat();
+        }
+    }
+
+    /**
+     * One driver's replay buffer and open streams. Events are appended and their sends queued under the
+     * channel's lock, and the driver's writes all run on one fan-out thread, so every stream gets them in order.
+     * Each event is serialized and framed once, however many streams it goes to.
+     */
+    private final class DriverChannel {
+
+        private final ExecutorService writer;
+        private final ArrayDeque<Buffered> recent = new ArrayDeque<>();
+        private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+        // Highest id no longer in the buffer; a client behind it has missed events
+        private long evictedId;
+
+        DriverChannel(ExecutorService writer) {
+            this.writer = writer;
+        }
+
+        synchronized void publish(String name, String json) {
+            long id = lastId.incrementAndGet();
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = SseEmitter.event()
+                    .id(Long.toString(id))
+                    .name(name)
+                    .data(json)
+                    .build();
+            recent.addLast(new Buffered(id, frame));
+            while (recent.size() > properties.getReplayCapacity()) {
+                evictedId = recent.removeFirst().id();
+            }
+            if (!emitters.isEmpty()) {
+                List<SseEmitter> targets = List.copyOf(emitters);
+                writer.execute(() -> targets.forEach(emitter -> send(emitter, frame)));
+            }
+        }
+
+        synchronized void subscribe(SseEmitter emitter, String lastEventId) {
+            List<Set<ResponseBodyEmitter.DataWithMediaType>> frames = new ArrayList<>();
+            frames.add(SseEmitter.event()
+                    .reconnectTime(properties.getReconnectDelay().toMillis())
+                    .comment("connected")
+                    .build());
+            Long after = parse(lastEventId);
+            if (lastEventId != null && (after == null || after < startId || after < evictedId)) {
+                frames.add(SseEmitter.event().name(RESYNC).data("Reload the driver's orders").build());
+            } else if (after != null) {
+                recent.stream().filter(buffered -> buffered.id() > after).forEach(buffered -> frames.add(buffered.frame()));
+            }
+            emitters.add(emitter);
+            connections.incrementAndGet();
+            writer.execute(() -> frames.forEach(frame -> send(emitter, frame)));
+        }
+
+        void heartbeat() {
+            if (!emitters.isEmpty()) {
+                List<SseEmitter> targets = List.copyOf(emitters);
+                writer.execute(() -> targets.forEach(emitter -> send(emitter, HEARTBEAT)));
+            }
+        }
+
+        void remove(SseEmitter emitter) {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+        }
+
+        void completeAll() {
+            emitters.forEach(SseEmitter::complete);
+        }
+
+        private void send(SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (!emitters.contains(emitter)) {
+                return;
+            }
+            try {
+                emitter.send(frame);
+            } catch (IOException | IllegalStateException e) {
+                // The app went away; the container completes the emitter too
+                remove(emitter);
+                log.debug("Dropped driver event stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    private record Buffered(long id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    }
+
+    private static Long parse(String lastEventId) {
+        try {
+            return lastEventId != null ? Long.valueOf(lastEventId.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,77 +1,176 @@
 package lk.swiftlogistics.wms.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lk.swiftlogistics.wms.domain.Order;
 import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import lk.swiftlogistics.wms.service.AutoDispatcher;
+import lk.swiftlogistics.wms.service.DispatchBoard;
+import lk.swiftlogistics.wms.service.OrderConflictException;
+import lk.swiftlogistics.wms.service.OrderCursor;
 import lk.swiftlogistics.wms.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
-@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://localhost:5174", "http://127.0.0.1:3000", "http://127.0.0.1:5173", "http://127.0.0.1:5174"})
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://localhost:5174", "http://127.0.0.1:3000", "http://127.0.0.1:5173", "http://127.0.0.1:5174"},
+        exposedHeaders = OrderController.NEXT_CURSOR_HEADER)
 @Slf4j
 public class OrderController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 1000;
+    // One UPDATE assigns them all, the ids bound as a single array
+    private static final int MAX_BULK_ASSIGN = 10_000;
+
     private final OrderService orderService;
+    private final DispatchBoard dispatchBoard;
+    private final AutoDispatcher autoDispatcher;
+    private final ObjectMapper objectMapper;
+
+    /*
+     * Listing endpoints return one page of at most `limit` orders as a JSON array, with the cursor for the
+     * next page in the X-Next-Cursor header (absent on the last page); pass it back as `cursor`.
+     * With stream=true every remaining order is written as it is read from a database cursor.
+     * Every endpoint returns orders as OrderSummary, with driverId/driverName in place of the driver.
+     * The dispatcher listings (unassigned, ready-for-dispatch) are served from the dispatch board once it is loaded.
+     */
 
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<StreamingResponseBody> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        return listing(cursor, limit, stream, orderService::getAllOrders, orderService::streamAllOrders);
     }
 
+    /**
+     * includeArchive=true also finds orders that were delivered long ago and archived
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        return orderService.getOrderById(id)
+    public ResponseEntity<OrderSummary> getOrderById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean includeArchive) {
+        return orderService.getOrderById(id, includeArchive)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/client-ref/{clientRef}")
-    public ResponseEntity<Order> getOrderByClientRef(@PathVariable String clientRef) {
-        return orderService.getOrderByClientRef(clientRef)
+    public ResponseEntity<OrderSummary> getOrderByClientRef(
+            @PathVariable String clientRef,
+            @RequestParam(defaultValue = "false") boolean includeArchive) {
+        return orderService.getOrderByClientRef(clientRef, includeArchive)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable OrderStatus status) {
-        return ResponseEntity.ok(orderService.getOrdersByStatus(status));
+    public ResponseEntity<StreamingResponseBody> getOrdersByStatus(
+            @PathVariable OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        return listing(cursor, limit, stream,
+                (after, size) -> orderService.getOrdersByStatus(status, after, size),
+                (after, sink) -> orderService.streamOrdersByStatus(status, after, sink));
     }
 
     @GetMapping("/ready-for-dispatch")
-    public ResponseEntity<List<Order>> getReadyForDispatchOrders() {
-        return ResponseEntity.ok(orderService.getOrdersByStatus(OrderStatus.RECEIVED));
+    public ResponseEntity<StreamingResponseBody> getReadyForDispatchOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        if (dispatchBoard.isReady()) {
+            return listing(cursor, limit, stream,
+                    dispatchBoard::readyForDispatchOrders, dispatchBoard::streamReadyForDispatchOrders);
+        }
+        return getOrdersByStatus(OrderStatus.RECEIVED, cursor, limit, stream);
     }
 
     @GetMapping("/unassigned")
-    public ResponseEntity<List<Order>> getUnassignedOrders() {
-        return ResponseEntity.ok(orderService.getUnassignedOrders());
+    public ResponseEntity<StreamingResponseBody> getUnassignedOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        if (dispatchBoard.isReady()) {
+            return listing(cursor, limit, stream,
+                    dispatchBoard::unassignedOrders, dispatchBoard::streamUnassignedOrders);
+        }
+        return listing(cursor, limit, stream, orderService::getUnassignedOrders, orderService::streamUnassignedOrders);
+    }
+
+    /**
+     * The most urgent orders waiting for a driver (High priority first, then by delivery date) and the available drivers
+     */
+    @GetMapping("/dispatch-board")
+    public ResponseEntity<Map<String, Object>> getDispatchBoard(@RequestParam(defaultValue = "100") int limit) {
+        if (!dispatchBoard.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Dispatch board is not loaded yet"));
+        }
+        return ResponseEntity.ok(Map.of(
+                "orders", dispatchBoard.mostUrgent(Math.max(1, Math.min(MAX_PAGE_SIZE, limit))),
+                "drivers", dispatchBoard.availableDrivers(),
+                "waitingOrders", dispatchBoard.waitingOrderCount(),
+                "availableDrivers", dispatchBoard.availableDriverCount()));
+    }
+
+    /**
+     * Assign waiting orders to available drivers now, by urgency and within each driver's weight capacity.
+     * With dryRun=true only the plan's totals are returned.
+     */
+    @PostMapping("/auto-dispatch")
+    public ResponseEntity<?> autoDispatch(@RequestParam(defaultValue = "false") boolean dryRun) {
+        if (!dispatchBoard.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Dispatch board is not loaded yet"));
+        }
+        return ResponseEntity.ok(autoDispatcher.dispatch(dryRun));
     }
 
     @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<Order>> getOrdersByDriver(@PathVariable Long driverId) {
-        return ResponseEntity.ok(orderService.getOrdersByDriver(driverId));
+    public ResponseEntity<StreamingResponseBody> getOrdersByDriver(
+            @PathVariable Long driverId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        return listing(cursor, limit, stream,
+                (after, size) -> orderService.getOrdersByDriver(driverId, after, size),
+                (after, sink) -> orderService.streamOrdersByDriver(driverId, after, sink));
     }
 
     @GetMapping("/delivery-date")
-    public ResponseEntity<List<Order>> getOrdersByDeliveryDate(
+    public ResponseEntity<StreamingResponseBody> getOrdersByDeliveryDate(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-            @RequestParam(required = false) OrderStatus status) {
-        
-        if (status != null) {
-            return ResponseEntity.ok(orderService.getOrdersByDeliveryDateRangeAndStatus(startDate, endDate, status));
-        } else {
-            return ResponseEntity.ok(orderService.getOrdersByDeliveryDateRange(startDate, endDate));
-        }
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "false") boolean includeArchive,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean stream) {
+        return listing(cursor, limit, stream,
+                (after, size) -> orderService.getOrdersByDeliveryDateRange(startDate, endDate, status, includeArchive, after, size),
+                (after, sink) -> orderService.streamOrdersByDeliveryDateRange(startDate, endDate, status, includeArchive, after, sink));
     }
 
     @PutMapping("/{id}/assign-driver")
@@ -83,16 +182,13 @@ public class OrderController {
             if (driverId == null) {
                 return ResponseEntity.badRequest().body(Map.of("error", "driverId is required"));
             }
+            // The assignment is published to the order_updates and notifications queues once committed
             Order updatedOrder = orderService.assignDriverToOrder(id, driverId);
+            log.info("Driver {} assigned to order {}", driverId, id);
             
-            // Log the assignment for driver app notification
-            log.info("Driver {} assigned to order {}. Driver app can be notified via /api/driver-app/driver/{}/notify-assignment", 
-                    driverId, id, driverId);
-            
-            // Note: In a real implementation, you could automatically call the driver app notification here
-            // or use an event-driven approach with message queues
-            
-            return ResponseEntity.ok(updatedOrder);
+            return ResponseEntity.ok(OrderSummary.of(updatedOrder));
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             log.error("Error assigning driver to order {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -110,9 +206,11 @@ public class OrderController {
             }
             OrderStatus newStatus = OrderStatus.valueOf(statusStr.toUpperCase());
             Order updatedOrder = orderService.updateOrderStatus(id, newStatus);
-            return ResponseEntity.ok(updatedOrder);
+            return ResponseEntity.ok(OrderSummary.of(updatedOrder));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid status: " + request.get("status")));
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -129,7 +227,7 @@ public class OrderController {
             }
             LocalDateTime newDeliveryDate = LocalDateTime.parse(dateStr);
             Order updatedOrder = orderService.updateOrderDeliveryDate(id, newDeliveryDate);
-            return ResponseEntity.ok(updatedOrder);
+            return ResponseEntity.ok(OrderSummary.of(updatedOrder));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Use ISO format: 2023-12-25T10:00:00"));
         }
@@ -137,30 +235,100 @@ public class OrderController {
 
     // Bulk operations for frontend convenience
     @PutMapping("/bulk/assign-driver")
-    public ResponseEntity<?> bulkAssignDriver(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> bulkAssignDriver(@RequestBody BulkAssignRequest request) {
+        if (request.orderIds() == null || request.orderIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "orderIds are required"));
+        }
+        if (request.orderIds().contains(null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "orderIds must not contain null"));
+        }
+        if (request.orderIds().size() > MAX_BULK_ASSIGN) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BULK_ASSIGN + " orderIds per request"));
+        }
+        if (request.driverId() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "driverId is required"));
+        }
         try {
-            @SuppressWarnings("unchecked")
-            List<Long> orderIds = (List<Long>) request.get("orderIds");
-            Long driverId = ((Number) request.get("driverId")).longValue();
-            
-            if (orderIds == null || orderIds.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "orderIds are required"));
-            }
-            if (driverId == null) {
-                return ResponseEntity.badRequest().body(Map.of("error", "driverId is required"));
+            OrderService.BulkAssignment result = orderService.bulkAssignDriver(request.orderIds(), request.driverId());
+            if (result.assigned().isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "No eligible orders found for assignment",
+                        "alreadyAssigned", result.alreadyAssigned(),
+                        "wrongStatus", result.wrongStatus(),
+                        "notFound", result.notFound()));
             }
-            
-            List<Order> updatedOrders = orderService.bulkAssignDriver(orderIds, driverId);
-            return ResponseEntity.ok(Map.of("success", true, "orders", updatedOrders));
-        } catch (Exception e) {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "driverId", request.driverId(),
+                    "orders", result.assigned().stream().map(OrderSummary::of).toList(),
+                    "alreadyAssigned", result.alreadyAssigned(),
+                    "wrongStatus", result.wrongStatus(),
+                    "notFound", result.notFound()));
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    /**
+     * Body of PUT /bulk/assign-driver
+     */
+    public record BulkAssignRequest(List<Long> orderIds, Long driverId) {
+    }
+
     // Get order statistics for dashboard
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getOrderStats() {
         Map<String, Object> stats = orderService.getOrderStatistics();
         return ResponseEntity.ok(stats);
     }
-}
\ No newline at end of file
+
+    /**
+     * Pages are small and already loaded, but are written the same way as streams so each endpoint has one return type
+     */
+    private ResponseEntity<StreamingResponseBody> listing(String cursor, int limit, boolean stream,
+                                                          BiFunction<OrderCursor, Integer, OrderService.OrderPage> pages,
+                                                          BiConsumer<OrderCursor, Consumer<OrderSummary>> rows) {
+        OrderCursor after;
+        try {
+            after = OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = Map.of("error", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+
+        if (stream) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeJsonArray(out, sink -> rows.accept(after, sink)));
+        }
+
+        OrderService.OrderPage page = pages.apply(after, Math.max(1, Math.min(MAX_PAGE_SIZE, limit)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(out -> writeJsonArray(out, sink -> page.orders().forEach(sink)));
+    }
+
+    private void writeJsonArray(OutputStream out, Consumer<Consumer<OrderSummary>> source) throws IOException {
+        // One flush per row would turn the response into thousands of tiny writes
+        ObjectWriter writer = objectMapper.writerFor(OrderSummary.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            try {
+                source.accept(order -> {
+                    try {
+                        writer.writeValue(json, order);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            json.writeEndArray();
+        }
+    }
+}
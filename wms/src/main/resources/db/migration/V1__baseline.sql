@@ -0,0 +1,32 @@
+-- Schema as previously created by hibernate ddl-auto=update. Existing databases are baselined at this version.
+
+CREATE TABLE drivers (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name           VARCHAR(255) NOT NULL,
+    license_number VARCHAR(255) NOT NULL UNIQUE,
+    phone_number   VARCHAR(255) NOT NULL,
+    email          VARCHAR(255) NOT NULL,
+    available      BOOLEAN      NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    updated_at     TIMESTAMP(6) NOT NULL
+);
+
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE orders (
+    id                 BIGINT       NOT NULL PRIMARY KEY,
+    client_ref         VARCHAR(255) NOT NULL UNIQUE,
+    customer_name      VARCHAR(255) NOT NULL,
+    delivery_address   VARCHAR(255) NOT NULL,
+    delivery_date      TIMESTAMP(6) NOT NULL,
+    status             VARCHAR(255) NOT NULL
+        CHECK (status IN ('RECEIVED', 'READY_TO_DISPATCH', 'DELIVERED')),
+    driver_id          BIGINT REFERENCES drivers (id),
+    created_at         TIMESTAMP(6) NOT NULL,
+    updated_at         TIMESTAMP(6) NOT NULL,
+    package_info       VARCHAR(255),
+    priority           VARCHAR(255),
+    tracking_number    VARCHAR(255),
+    warehouse_location VARCHAR(255),
+    weight             FLOAT(53)
+);
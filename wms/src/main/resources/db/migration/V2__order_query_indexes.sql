@@ -0,0 +1,27 @@
+-- Indexes for the order listing and driver queries in OrderRepository / DriverRepository.
+-- Listings are keyset-paginated on id (or delivery_date, id), so each index ends with the sort key
+-- and a page is a range scan that stops after LIMIT rows.
+-- CONCURRENTLY keeps ingestion running while the indexes build on a live table; Flyway runs
+-- this migration outside a transaction.
+
+-- findByStatusAfter / streamByStatusAfter
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_status_id
+    ON orders (status, id);
+
+-- findByDeliveryDateAndStatusAfter
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_status_delivery_date_id
+    ON orders (status, delivery_date, id);
+
+-- findByDeliveryDateAfter
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_delivery_date_id
+    ON orders (delivery_date, id);
+
+-- findByDriverAfter, findByAssignedDriverId, existsByAssignedDriverIdAndStatusIn,
+-- countByAssignedDriverIdAndStatus and the active order join in findDriverSummaries;
+-- also backs the foreign key, which Postgres does not index on its own
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_driver_id_status
+    ON orders (driver_id, status);
+
+-- findUnassignedAfter: only the unassigned backlog, which stays small next to the whole table
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_unassigned_id
+    ON orders (id) WHERE driver_id IS NULL;
@@ -0,0 +1,34 @@
+-- Delivered orders older than wms.archive.retention are moved here from orders by OrderArchiver.
+-- Range partitioned by delivery month; the archiver creates each month's partition (orders_archive_yYYYYmMM)
+-- before moving orders into it, so old months can be detached and exported or dropped on their own.
+-- No foreign key to drivers: a driver can be deleted once all of their orders are archived.
+CREATE TABLE orders_archive (
+    id                 BIGINT       NOT NULL,
+    client_ref         VARCHAR(255) NOT NULL,
+    customer_name      VARCHAR(255) NOT NULL,
+    delivery_address   VARCHAR(255) NOT NULL,
+    delivery_date      TIMESTAMP(6) NOT NULL,
+    status             VARCHAR(255) NOT NULL,
+    driver_id          BIGINT,
+    created_at         TIMESTAMP(6) NOT NULL,
+    updated_at         TIMESTAMP(6) NOT NULL,
+    package_info       VARCHAR(255),
+    priority           VARCHAR(255),
+    tracking_number    VARCHAR(255),
+    warehouse_location VARCHAR(255),
+    weight             FLOAT(53),
+    archived_at        TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, delivery_date)
+) PARTITION BY RANGE (delivery_date);
+
+CREATE INDEX idx_orders_archive_client_ref ON orders_archive (client_ref);
+CREATE INDEX idx_orders_archive_delivery_date_id ON orders_archive (delivery_date, id);
+CREATE INDEX idx_orders_archive_driver_id ON orders_archive (driver_id);
+
+-- Orders archived per delivery month, so totals that include the archive need not count it
+CREATE TABLE orders_archive_months (
+    delivery_month DATE         NOT NULL PRIMARY KEY,
+    orders         BIGINT       NOT NULL,
+    high_priority  BIGINT       NOT NULL,
+    archived_at    TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,4 @@
+-- Row versions for optimistic locking (@Version on Order and Driver): an update only applies if the row
+-- still has the version that was read, so concurrent assignments and status changes cannot overwrite each other.
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE drivers ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
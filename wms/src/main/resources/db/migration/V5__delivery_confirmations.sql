@@ -0,0 +1,12 @@
+-- Deliveries confirmed through the driver app's batch endpoint, by the idempotency key the app generated
+-- for each one. No foreign keys: orders are archived and drivers deleted independently of this history.
+CREATE TABLE delivery_confirmations (
+    idempotency_key VARCHAR(100)  NOT NULL PRIMARY KEY,
+    order_id        BIGINT        NOT NULL,
+    driver_id       BIGINT        NOT NULL,
+    delivery_notes  VARCHAR(2000),
+    delivery_proof  VARCHAR(2000),
+    confirmed_at    TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX idx_delivery_confirmations_order_id ON delivery_confirmations (order_id);
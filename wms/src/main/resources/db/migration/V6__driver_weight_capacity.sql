@@ -0,0 +1,2 @@
+-- Load a driver's vehicle can carry, in kg, for automatic dispatch; null for wms.auto-dispatch.default-capacity
+ALTER TABLE drivers ADD COLUMN weight_capacity DOUBLE PRECISION;
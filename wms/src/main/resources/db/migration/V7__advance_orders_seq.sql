@@ -0,0 +1,9 @@
+-- A database created by ddl-auto and baselined at V1 has order ids handed out by the old IDENTITY column,
+-- while orders_seq (added with the batch inserts) still starts at 1. Move the sequence past every id in use,
+-- archived ones included, so the first inserts after the upgrade cannot collide. Never moves it back.
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('orders_seq', GREATEST(
+        (SELECT last_value FROM orders_seq),
+        (SELECT COALESCE(max(id), 0) + 50 FROM orders),
+        (SELECT COALESCE(max(id), 0) + 50 FROM orders_archive)));
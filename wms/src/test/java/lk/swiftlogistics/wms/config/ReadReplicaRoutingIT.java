@@ -0,0 +1,184 @@
+package lk.swiftlogistics.wms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.messaging.IngestionConcurrencyController;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.service.OrderService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between two embedded Postgres instances, both migrated by Flyway. They do not replicate, so a row
+ * written to only one of them shows which database a query ran on.
+ * Runs with mvn verify, as a non-root user.
+ */
+@SpringBootTest(properties = {
+        "wms.datasource.replica.check-interval=1h",
+        "wms.ingestion.concurrency.adaptive=true",
+        "wms.ingestion.concurrency.max-pool-usage=0.5"
+})
+@ActiveProfiles("embedded")
+class ReadReplicaRoutingIT {
+
+    private static final EmbeddedPostgres PRIMARY = start();
+    private static final EmbeddedPostgres REPLICA = start();
+
+    static {
+        Flyway.configure()
+                .dataSource(REPLICA.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+    }
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> PRIMARY.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("wms.datasource.replica.url", () -> REPLICA.getJdbcUrl("postgres", "postgres"));
+        registry.add("wms.datasource.replica.username", () -> "postgres");
+        registry.add("wms.datasource.replica.password", () -> "");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        PRIMARY.close();
+        REPLICA.close();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReplicaDataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaProperties replicaProperties;
+
+    @Autowired
+    private IngestionConcurrencyController ingestionConcurrencyController;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryPool;
+
+    private final JdbcTemplate primary = new JdbcTemplate(PRIMARY.getPostgresDatabase());
+    private final JdbcTemplate replica = new JdbcTemplate(REPLICA.getPostgresDatabase());
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplicaAndWritesOnThePrimary() {
+        insertDriver(replica, "REPLICA-1", "Replica Driver");
+        Driver created = orderService.createDriver(driver("PRIMARY-1", "Primary Driver"));
+
+        assertThat(primary.queryForObject("SELECT count(*) FROM drivers WHERE id = ?", Long.class, created.getId()))
+                .isEqualTo(1);
+        assertThat(orderService.getAllDrivers())
+                .extracting(Driver::getName)
+                .contains("Replica Driver")
+                .doesNotContain("Primary Driver");
+    }
+
+    @Test
+    void orderCacheLoadsFromThePrimary() {
+        Order order = new Order();
+        order.setClientRef("ROUTING-1");
+        order.setCustomerName("Customer");
+        order.setDeliveryAddress("1 Galle Road, Colombo 03");
+        order.setDeliveryDate(LocalDateTime.now().plusDays(1));
+        Long id = orderRepository.save(order).getId();
+
+        assertThat(orderService.getOrderById(id)).isPresent();
+        assertThat(orderService.getOrderByClientRef("ROUTING-1")).isPresent();
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() {
+        insertDriver(replica, "REPLICA-2", "Lagging Replica Driver");
+        orderService.createDriver(driver("PRIMARY-2", "Current Primary Driver"));
+        Duration maxLag = replicaProperties.getMaxLag();
+        try {
+            // A standalone instance is never behind, so make any lag too much
+            replicaProperties.setMaxLag(Duration.ofSeconds(-1));
+            replicaDataSource.checkLag();
+            assertThat(replicaDataSource.isReplicaInUse()).isFalse();
+            assertThat(orderService.getAllDrivers()).extracting(Driver::getName)
+                    .contains("Current Primary Driver")
+                    .doesNotContain("Lagging Replica Driver");
+        } finally {
+            replicaProperties.setMaxLag(maxLag);
+            replicaDataSource.checkLag();
+        }
+        assertThat(replicaDataSource.isReplicaInUse()).isTrue();
+        assertThat(orderService.getAllDrivers()).extracting(Driver::getName).contains("Lagging Replica Driver");
+    }
+
+    @Test
+    void ingestionSeesThePrimaryPoolBehindTheRoutingDataSource() throws SQLException {
+        assertThat(ingestionConcurrencyController.isPoolSaturated()).isFalse();
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            while (held.size() < primaryPool.getMaximumPoolSize() / 2) {
+                held.add(primaryPool.getConnection());
+            }
+            assertThat(ingestionConcurrencyController.isPoolSaturated()).isTrue();
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertThat(ingestionConcurrencyController.isPoolSaturated()).isFalse();
+    }
+
+    private static void insertDriver(JdbcTemplate database, String licenseNumber, String name) {
+        database.update("INSERT INTO drivers (name, license_number, phone_number, email, available, created_at, updated_at)"
+                + " VALUES (?, ?, '+94 77 000 0000', 'driver@swiftlogistics.lk', true, now(), now())", name, licenseNumber);
+    }
+
+    private static Driver driver(String licenseNumber, String name) {
+        Driver driver = new Driver();
+        driver.setName(name);
+        driver.setLicenseNumber(licenseNumber);
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail("driver@swiftlogistics.lk");
+        return driver;
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Postgres", e);
+        }
+    }
+}
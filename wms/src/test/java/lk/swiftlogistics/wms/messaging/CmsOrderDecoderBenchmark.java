@@ -0,0 +1,109 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming CmsOrderDecoder against the previous path in OrderListener,
+ * which converted the body to a String, built a JsonNode tree and walked it with has()/get().
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CmsOrderDecoder
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsOrderDecoderBenchmark {
+
+    static final String NESTED_LAYOUT = """
+            {"orderId":"CMS-100234","trackingNumber":"TRK-100234",
+             "pickup":{"contact":"Kamal Perera","address":"12 Galle Road, Colombo 03","phone":"+94 77 123 4567"},
+             "source":{"contact":"Nimal Silva","address":"45 Kandy Road, Kiribathgoda","phone":"+94 71 234 5678"},
+             "package":{"weight":2.5,"description":"Electronics","dimensions":{"l":30,"w":20,"h":10}},
+             "service":{"type":"express","urgency":"urgent","estimatedDelivery":"2024-06-01T14:30:00"},
+             "createdAt":"2024-05-31T08:12:45Z"}
+            """;
+
+    static final String FLAT_LAYOUT = """
+            {"orderId":"CMS-100235","estimatedDelivery":"2024-06-02","urgency":"normal",
+             "package":{"packageInfo":"3 boxes of documents"},"notes":"Leave at reception"}
+            """;
+
+    @Param({"nested", "flat"})
+    public String layout;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CmsOrderDecoder decoder;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        decoder = new CmsOrderDecoder(objectMapper);
+        body = ("nested".equals(layout) ? NESTED_LAYOUT : FLAT_LAYOUT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CmsOrderMessage streamingDecoder() throws IOException {
+        return decoder.decode(body);
+    }
+
+    @Benchmark
+    public CmsOrderMessage jsonNodeTree() throws IOException {
+        JsonNode orderJson = objectMapper.readTree(new String(body, StandardCharsets.UTF_8));
+
+        String trackingNumber = orderJson.has("trackingNumber")
+            ? orderJson.get("trackingNumber").asText()
+            : orderJson.has("orderId") ? orderJson.get("orderId").asText() : null;
+
+        String customerName = null;
+        if (orderJson.has("pickup") && orderJson.get("pickup").has("contact")) {
+            customerName = orderJson.get("pickup").get("contact").asText();
+        } else if (orderJson.has("source") && orderJson.get("source").has("contact")) {
+            customerName = orderJson.get("source").get("contact").asText();
+        }
+
+        String deliveryAddress = null;
+        if (orderJson.has("source") && orderJson.get("source").has("address")) {
+            deliveryAddress = orderJson.get("source").get("address").asText();
+        } else if (orderJson.has("pickup") && orderJson.get("pickup").has("address")) {
+            deliveryAddress = orderJson.get("pickup").get("address").asText();
+        }
+
+        String packageInfo = null;
+        Double weight = null;
+        if (orderJson.has("package")) {
+            JsonNode packageNode = orderJson.get("package");
+            if (packageNode.has("weight") && packageNode.get("weight").isNumber()) {
+                weight = packageNode.get("weight").asDouble();
+            }
+            if (packageNode.has("weight") && packageNode.has("description")) {
+                packageInfo = packageNode.get("weight").asText() + "kg " + packageNode.get("description").asText();
+            } else if (packageNode.has("packageInfo")) {
+                packageInfo = packageNode.get("packageInfo").asText();
+            }
+        }
+
+        String estimatedDelivery = null;
+        if (orderJson.has("service") && orderJson.get("service").has("estimatedDelivery")) {
+            estimatedDelivery = orderJson.get("service").get("estimatedDelivery").asText();
+        } else if (orderJson.has("estimatedDelivery")) {
+            estimatedDelivery = orderJson.get("estimatedDelivery").asText();
+        }
+
+        String urgency = null;
+        if (orderJson.has("service") && orderJson.get("service").has("urgency")) {
+            urgency = orderJson.get("service").get("urgency").asText();
+        } else if (orderJson.has("urgency")) {
+            urgency = orderJson.get("urgency").asText();
+        }
+
+        return new CmsOrderMessage(trackingNumber, customerName, deliveryAddress, packageInfo, estimatedDelivery, urgency, weight);
+    }
+}
@@ -0,0 +1,84 @@
+package lk.swiftlogistics.wms.messaging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates CMS order payloads in the two layouts OrderListener accepts, with realistic
+ * field sizes and a mix of urgencies and delivery date formats. Tracking numbers are unique
+ * per sequence number.
+ */
+final class CmsOrderPayloads {
+
+    private static final String[] NAMES = {
+        "Kamal Perera", "Nimal Silva", "Sunil Fernando", "Chaminda Rajapakse", "Pradeep Mendis",
+        "Anura Bandara", "Dilani Jayasinghe", "Ruwan Wickramasinghe", "Sanduni Herath", "Tharindu Gunawardena"
+    };
+    private static final String[] STREETS = {
+        "Galle Road, Colombo 03", "Kandy Road, Kiribathgoda", "High Level Road, Nugegoda",
+        "Baseline Road, Colombo 09", "Negombo Road, Wattala", "Peradeniya Road, Kandy"
+    };
+    private static final String[] DESCRIPTIONS = {
+        "Electronics", "Documents", "Clothing", "Books", "Spare parts", "Cosmetics", "Groceries"
+    };
+    private static final String[] URGENCIES = {"urgent", "high", "normal", "normal", "normal", "medium", "low"};
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    private CmsOrderPayloads() {
+    }
+
+    static byte[] nested(long sequence, Random random) {
+        String json = "{\"orderId\":\"CMS-" + sequence + "\",\"trackingNumber\":\"TRK-" + sequence + "\","
+                + "\"pickup\":{\"contact\":\"" + pick(NAMES, random) + "\",\"address\":\"" + address(random) + "\","
+                + "\"phone\":\"+94 77 " + (1_000_000 + random.nextInt(9_000_000)) + "\"},"
+                + "\"source\":{\"contact\":\"" + pick(NAMES, random) + "\",\"address\":\"" + address(random) + "\","
+                + "\"phone\":\"+94 71 " + (1_000_000 + random.nextInt(9_000_000)) + "\"},"
+                + "\"package\":{\"weight\":" + weight(random) + ",\"description\":\"" + pick(DESCRIPTIONS, random) + "\","
+                + "\"dimensions\":{\"l\":" + (10 + random.nextInt(50)) + ",\"w\":" + (10 + random.nextInt(40))
+                + ",\"h\":" + (5 + random.nextInt(30)) + "}},"
+                + "\"service\":{\"type\":\"express\",\"urgency\":\"" + pick(URGENCIES, random) + "\","
+                + "\"estimatedDelivery\":\"" + deliveryDate(random) + "\"},"
+                + "\"createdAt\":\"" + BASE_DATE.atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) + "\"}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] flat(long sequence, Random random) {
+        return flat(sequence, deliveryDate(random), random);
+    }
+
+    /**
+     * Flat layout with the given estimatedDelivery, e.g. one the parser does not accept
+     */
+    static byte[] flat(long sequence, String estimatedDelivery, Random random) {
+        String json = "{\"orderId\":\"CMS-" + sequence + "\","
+                + "\"estimatedDelivery\":\"" + estimatedDelivery + "\","
+                + "\"urgency\":\"" + pick(URGENCIES, random) + "\","
+                + "\"package\":{\"packageInfo\":\"" + (1 + random.nextInt(5)) + " boxes of " + pick(DESCRIPTIONS, random) + "\"},"
+                + "\"notes\":\"Call " + pick(NAMES, random) + " on arrival\"}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String deliveryDate(Random random) {
+        LocalDateTime date = BASE_DATE.plusDays(random.nextInt(14)).plusMinutes(30L * random.nextInt(20));
+        return switch (random.nextInt(3)) {
+            case 0 -> date.toLocalDate().toString();
+            case 1 -> date.toString() + ":00";
+            default -> date.atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        };
+    }
+
+    private static String address(Random random) {
+        return (1 + random.nextInt(400)) + " " + pick(STREETS, random);
+    }
+
+    private static String weight(Random random) {
+        return String.valueOf((1 + random.nextInt(300)) / 10.0);
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,52 @@
+package lk.swiftlogistics.wms.messaging;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares DeliveryDateParser with the previous OrderListener.parseDeliveryDate, which tried
+ * LocalDateTime.parse up to three times and relied on DateTimeParseException to move on.
+ * Date-only and instant inputs cost the old path one and two exceptions respectively.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=DeliveryDateParser
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeliveryDateParserBenchmark {
+
+    @Param({"2024-06-01T14:30:00", "2024-06-01", "2024-06-01T09:00:00.000Z"})
+    public String input;
+
+    private final DeliveryDateParser parser = new DeliveryDateParser(ZoneId.of("Asia/Colombo"));
+
+    @Benchmark
+    public LocalDateTime formatDetecting() {
+        return parser.parse(input);
+    }
+
+    @Benchmark
+    public LocalDateTime exceptionDriven() {
+        try {
+            return LocalDateTime.parse(input, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e1) {
+            try {
+                return LocalDateTime.parse(input + "T09:00:00", DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException e2) {
+                try {
+                    return LocalDateTime.parse(input.replace("Z", ""), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                } catch (DateTimeParseException e3) {
+                    return null;
+                }
+            }
+        }
+    }
+}
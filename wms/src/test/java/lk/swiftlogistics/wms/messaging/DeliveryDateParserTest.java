@@ -0,0 +1,97 @@
+package lk.swiftlogistics.wms.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryDateParserTest {
+
+    private static final ZoneId COLOMBO = ZoneId.of("Asia/Colombo");
+
+    private final DeliveryDateParser parser = new DeliveryDateParser(COLOMBO);
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "2024-06-01                    | 2024-06-01T09:00",
+            "2024-06-01T14:30              | 2024-06-01T14:30",
+            "2024-06-01 14:30              | 2024-06-01T14:30",
+            "2024-06-01T14:30:45           | 2024-06-01T14:30:45",
+            "2024-06-01 14:30:45           | 2024-06-01T14:30:45",
+            "2024-06-01T14:30:45.1         | 2024-06-01T14:30:45.1",
+            "2024-06-01T14:30:45.123       | 2024-06-01T14:30:45.123",
+            "2024-06-01T14:30:45,123456    | 2024-06-01T14:30:45.123456",
+            "2024-06-01T14:30:45.123456789 | 2024-06-01T14:30:45.123456789",
+            "2024-02-29T23:59:59           | 2024-02-29T23:59:59",
+    })
+    void readsWarehouseLocalTimes(String text, LocalDateTime expected) {
+        assertThat(parser.parse(text)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // Colombo is UTC+05:30 all year
+            "2024-06-01T09:00Z                | 2024-06-01T14:30",
+            "2024-06-01T09:00:00z             | 2024-06-01T14:30",
+            "2024-06-01T09:00:00.250Z         | 2024-06-01T14:30:00.250",
+            "2024-06-01T14:30+05:30           | 2024-06-01T14:30",
+            "2024-06-01T14:30:00+0530         | 2024-06-01T14:30",
+            "2024-06-01T14:30:00+05           | 2024-06-01T15:00",
+            "2024-06-01 04:00:00-04:00        | 2024-06-01T13:30",
+            "2024-06-01T20:00:00-0500         | 2024-06-02T06:30",
+            "2024-06-01T12:00:00+18:00        | 2024-05-31T23:30",
+            "2024-06-01T12:00:00-18           | 2024-06-02T11:30",
+            "2024-12-31T22:00:00.123456789Z   | 2025-01-01T03:30:00.123456789",
+    })
+    void convertsOffsetsToTheWarehouseZone(String text, LocalDateTime expected) {
+        assertThat(parser.parse(text)).isEqualTo(expected);
+    }
+
+    @Test
+    void offsetConversionMatchesJavaTime() {
+        String text = "2024-03-10T01:15:30.5-07:00";
+
+        assertThat(parser.parse(text))
+                .isEqualTo(OffsetDateTime.parse(text).atZoneSameInstant(COLOMBO).toLocalDateTime());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "2024-06",
+            "2024/06/01",
+            "24-06-01",
+            "2024-13-01",
+            "2024-00-01",
+            "2024-06-00",
+            "2024-06-31",
+            "2023-02-29",
+            "2100-02-29",
+            "2024-06-01X14:30",
+            "2024-06-01T14",
+            "2024-06-01T24:00",
+            "2024-06-01T14:60",
+            "2024-06-01T14:30:60",
+            "2024-06-01T14:30:",
+            "2024-06-01T14:30:00:",
+            "2024-06-01T14:30:00.",
+            "2024-06-01T14:30:00.1234567890",
+            "2024-06-01T14:30:00+18:01",
+            "2024-06-01T14:30:00+19",
+            "2024-06-01T14:30:00-1900",
+            "2024-06-01T14:30:00+05:",
+            "2024-06-01T14:30:00+5",
+            "2024-06-01T14:30:00+05:30:00",
+            "2024-06-01T14:30:00Z+05",
+            "2024-06-01T14:30:00 UTC",
+    })
+    void rejectsUnsupportedOrInvalidDates(String text) {
+        assertThat(parser.parse(text)).isNull();
+    }
+}
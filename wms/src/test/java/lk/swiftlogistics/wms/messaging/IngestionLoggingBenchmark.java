@@ -0,0 +1,116 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+import lk.swiftlogistics.wms.WmsApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion throughput under the two logging setups: logging=development is application.yml's
+ * (SQL echoed and formatted, DEBUG for the application, AMQP and web), logging=production adds profile
+ * "prod" (async console, INFO, slow-query SQL log only). Same pipeline as IngestionThroughputBenchmark;
+ * one order in ten carries a delivery date the parser rejects, to exercise the sampled parse warning.
+ *
+ * The console goes to a temporary file instead of the terminal; each trial prints the log bytes
+ * written per order.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=IngestionLogging
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestionLoggingBenchmark {
+
+    static final int BATCH_SIZE = 100;
+    static final int UNPARSEABLE_DATE_EVERY = 10;
+
+    @Param({"development", "production"})
+    public String logging;
+
+    private PrintStream terminal;
+    private Path logFile;
+    private ConfigurableApplicationContext context;
+    private OrderListener listener;
+    private Channel channel;
+    private final Random random = new Random(42);
+    private long sequence;
+    private long deliveryTag;
+    private List<Message> batch;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        logFile = Files.createTempFile("wms-ingestion-logging", ".log");
+        terminal = System.out;
+        System.setOut(new PrintStream(new FileOutputStream(logFile.toFile()), false, StandardCharsets.UTF_8));
+
+        SpringApplicationBuilder application = new SpringApplicationBuilder(WmsApplication.class)
+                .web(WebApplicationType.NONE);
+        context = switch (logging) {
+            // Arguments, so they win over the levels in application-embedded.yml
+            case "development" -> application.profiles("embedded")
+                    .run("--spring.jpa.show-sql=true",
+                            "--spring.jpa.properties.hibernate.format_sql=true",
+                            "--logging.level.lk.swiftlogistics.wms=DEBUG",
+                            "--logging.level.org.springframework.amqp=DEBUG",
+                            "--logging.level.org.springframework.web=DEBUG");
+            case "production" -> application.profiles("embedded", "prod")
+                    .run("--logging.level.lk.swiftlogistics.wms=INFO");
+            default -> throw new IllegalArgumentException("Unknown logging " + logging);
+        };
+        listener = context.getBean(OrderListener.class);
+        channel = new RecordingChannel().channel();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long seq = ++sequence;
+            MessageProperties properties = new MessageProperties();
+            properties.setDeliveryTag(++deliveryTag);
+            properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            byte[] body = seq % UNPARSEABLE_DATE_EVERY == 0
+                    ? CmsOrderPayloads.flat(seq, "next business day, before noon", random)
+                    : CmsOrderPayloads.nested(seq, random);
+            batch.add(new Message(body, properties));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void throughput() throws IOException {
+        listener.handleOrders(batch, channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        try {
+            context.close();
+        } finally {
+            System.out.flush();
+            System.setOut(terminal);
+            long bytes = Files.size(logFile);
+            System.out.printf("%nlogging=%s: %d log bytes for %d orders (%.1f bytes/order)%n",
+                    logging, bytes, sequence, sequence == 0 ? 0.0 : (double) bytes / sequence);
+            Files.deleteIfExists(logFile);
+        }
+    }
+}
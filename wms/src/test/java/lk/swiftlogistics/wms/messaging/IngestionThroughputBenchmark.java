@@ -0,0 +1,110 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+import lk.swiftlogistics.wms.WmsApplication;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end ingestion: generated CMS payloads go through the real OrderListener, decoder,
+ * write-behind buffer, dedup index and JDBC batch insert, with an in-memory H2 database (profile "embedded")
+ * and a recording channel standing in for RabbitMQ. Runs offline.
+ *
+ * throughput reports messages/sec; batchLatency reports p50/p99 per batch of BATCH_SIZE handed to the
+ * listener (once the write-behind buffer is full this is paced by the group commits);
+ * -prof gc (enabled by the benchmark profile) adds the allocation rate.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=IngestionThroughput
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestionThroughputBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    @Param({"nested", "flat", "mixed"})
+    public String layout;
+
+    private ConfigurableApplicationContext context;
+    private OrderListener listener;
+    private RecordingChannel recorder;
+    private Channel channel;
+    private final Random random = new Random(42);
+    private long sequence;
+    private long deliveryTag;
+    private List<Message> batch;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(WmsApplication.class)
+                .profiles("embedded")
+                .web(WebApplicationType.NONE)
+                .run();
+        listener = context.getBean(OrderListener.class);
+        recorder = new RecordingChannel();
+        channel = recorder.channel();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long seq = ++sequence;
+            boolean nested = switch (layout) {
+                case "nested" -> true;
+                case "flat" -> false;
+                default -> random.nextBoolean();
+            };
+            MessageProperties properties = new MessageProperties();
+            properties.setDeliveryTag(++deliveryTag);
+            properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            batch.add(new Message(nested ? CmsOrderPayloads.nested(seq, random) : CmsOrderPayloads.flat(seq, random), properties));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void throughput() throws IOException {
+        listener.handleOrders(batch, channel);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void batchLatency() throws IOException {
+        listener.handleOrders(batch, channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void verifyAndStop() throws InterruptedException {
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (recorder.ackedUpTo() < deliveryTag && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            long stored = context.getBean(OrderRepository.class).count();
+            if (recorder.nacked() > 0 || recorder.ackedUpTo() != deliveryTag || stored != sequence) {
+                throw new IllegalStateException("Ingestion did not take the happy path: acked up to "
+                        + recorder.ackedUpTo() + " of " + deliveryTag + ", nacked " + recorder.nacked()
+                        + ", stored " + stored + " of " + sequence);
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
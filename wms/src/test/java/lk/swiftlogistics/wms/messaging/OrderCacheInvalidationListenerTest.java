@@ -0,0 +1,62 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lk.swiftlogistics.wms.service.OrderCacheInvalidation;
+import lk.swiftlogistics.wms.service.OrderLookupCache;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class OrderCacheInvalidationListenerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OrderLookupCache orderLookupCache = mock(OrderLookupCache.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOrderCacheInvalidationChannel channel = new RabbitOrderCacheInvalidationChannel(rabbitTemplate, objectMapper);
+    private final OrderCacheInvalidationListener listener = new OrderCacheInvalidationListener(orderLookupCache, channel, objectMapper);
+
+    @Test
+    void ownBroadcastsAreIgnored() {
+        listener.onInvalidation(broadcastBy(rabbitTemplate, channel, new OrderCacheInvalidation(1L, "CMS-1")));
+
+        // This instance evicted the order when it committed the change
+        verifyNoInteractions(orderLookupCache);
+    }
+
+    @Test
+    void otherInstancesBroadcastsEvictTheOrder() {
+        RabbitTemplate otherTemplate = mock(RabbitTemplate.class);
+        RabbitOrderCacheInvalidationChannel otherInstance = new RabbitOrderCacheInvalidationChannel(otherTemplate, objectMapper);
+        OrderCacheInvalidation invalidation = new OrderCacheInvalidation(2L, "CMS-2");
+
+        listener.onInvalidation(broadcastBy(otherTemplate, otherInstance, invalidation));
+
+        verify(orderLookupCache).evictRemote(invalidation);
+    }
+
+    @Test
+    void unreadableBroadcastsAreIgnored() {
+        listener.onInvalidation(new Message("not json".getBytes(), new MessageProperties()));
+
+        verifyNoInteractions(orderLookupCache);
+    }
+
+    /**
+     * The message the instance behind the channel puts on the fanout exchange
+     */
+    private static Message broadcastBy(RabbitTemplate template, RabbitOrderCacheInvalidationChannel instance,
+                                       OrderCacheInvalidation invalidation) {
+        instance.publish(invalidation);
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(template).send(eq(RabbitConfig.ORDER_CACHE_EXCHANGE), eq(""), message.capture());
+        return message.getValue();
+    }
+}
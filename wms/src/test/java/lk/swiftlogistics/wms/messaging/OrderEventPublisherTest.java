@@ -0,0 +1,94 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lk.swiftlogistics.wms.config.EventProperties;
+import lk.swiftlogistics.wms.domain.OrderEvent;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class OrderEventPublisherTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EventProperties properties = new EventProperties();
+
+    @Test
+    void eventsSurviveABrokerOutageLongerThanAFlushInterval() throws InterruptedException {
+        properties.setFlushInterval(Duration.ofMillis(10));
+        properties.setRetryBackoff(Duration.ofMillis(20));
+        // The broker is down for 150 ms from the first publish
+        AtomicLong outageEnds = new AtomicLong();
+        Set<String> published = new HashSet<>();
+        doAnswer(invocation -> {
+            outageEnds.compareAndSet(0, System.nanoTime() + Duration.ofMillis(150).toNanos());
+            if (System.nanoTime() < outageEnds.get()) {
+                throw new AmqpConnectException(new ConnectException("Connection refused"));
+            }
+            Message message = invocation.getArgument(2);
+            published.add(invocation.getArgument(1) + "/" + message.getMessageProperties().getType()
+                    + "/" + new String(message.getBody()));
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(eq(""), anyString(), any(Message.class), any(CorrelationData.class));
+
+        OrderEventPublisher publisher = new OrderEventPublisher(rabbitTemplate, new ObjectMapper().findAndRegisterModules(),
+                properties, meterRegistry, mock(TaskScheduler.class));
+        for (long id = 1; id <= 3; id++) {
+            publisher.onOrderEvent(event(id));
+        }
+        // Flushed as the scheduler would, every flush interval, until well after the broker is back
+        long until = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (published.size() < 6 && System.nanoTime() < until) {
+            publisher.flush();
+            Thread.sleep(properties.getFlushInterval().toMillis());
+        }
+
+        assertThat(published).hasSize(6);
+        assertThat(meterRegistry.get("wms.events.dropped").counter().count()).isZero();
+        assertThat(meterRegistry.get("wms.events.failed").counter().count()).isPositive();
+    }
+
+    @Test
+    void aFlushMakesOneAttemptPerMessage() {
+        doAnswer(invocation -> {
+            throw new AmqpConnectException(new ConnectException("Connection refused"));
+        }).when(rabbitTemplate).send(eq(""), anyString(), any(Message.class), any(CorrelationData.class));
+
+        OrderEventPublisher publisher = new OrderEventPublisher(rabbitTemplate, new ObjectMapper().findAndRegisterModules(),
+                properties, meterRegistry, mock(TaskScheduler.class));
+        publisher.onOrderEvent(event(1));
+        publisher.flush();
+        publisher.flush();
+
+        // The retry waits out retryBackoff, so neither the first flush nor the next one spends another attempt
+        assertThat(meterRegistry.get("wms.events.failed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("wms.events.retrying").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("wms.events.dropped").counter().count()).isZero();
+    }
+
+    private static OrderEvent event(long orderId) {
+        return new OrderEvent(OrderEvent.Type.ASSIGNED, orderId, "CMS-" + orderId, OrderStatus.READY_TO_DISPATCH,
+                OrderStatus.RECEIVED, 7L, "Driver", null, Instant.now());
+    }
+}
@@ -0,0 +1,127 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class OrderFailureHandlerTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final IngestionProperties ingestionProperties = new IngestionProperties();
+    private final OrderFailureHandler handler = new OrderFailureHandler(rabbitTemplate, ingestionProperties);
+    private final Channel channel = mock(Channel.class);
+    private final List<Sent> sent = new ArrayList<>();
+
+    @Test
+    void retryableFailuresGoThroughTheDelayQueuesThenToTheDeadLetterQueue() throws Exception {
+        brokerAnswers(correlation -> correlation.getFuture().complete(new CorrelationData.Confirm(true, null)));
+
+        Message message = message(1, null);
+        for (int attempt = 1; attempt <= 4; attempt++) {
+            handler.reject(message, channel, new IllegalStateException("database down"), true);
+            message = sent.get(sent.size() - 1).message();
+        }
+
+        // Defaults: 4 attempts, retried after 1s, 5s and 25s
+        assertThat(sent).extracting(Sent::queue).containsExactly(
+                RabbitConfig.ordersRetryQueue(Duration.ofSeconds(1)),
+                RabbitConfig.ordersRetryQueue(Duration.ofSeconds(5)),
+                RabbitConfig.ordersRetryQueue(Duration.ofSeconds(25)),
+                RabbitConfig.ORDERS_DEAD_LETTER_QUEUE);
+        MessageProperties deadLetter = sent.get(3).message().getMessageProperties();
+        assertThat((Object) deadLetter.getHeader(OrderFailureHandler.ATTEMPTS_HEADER)).isEqualTo(4);
+        assertThat((Object) deadLetter.getHeader(OrderFailureHandler.FAILURE_REASON_HEADER)).isEqualTo("database down");
+        assertThat((Object) deadLetter.getHeader(OrderFailureHandler.FAILURE_EXCEPTION_HEADER))
+                .isEqualTo(IllegalStateException.class.getName());
+        // Each copy, redelivered from its delay queue, carries the same tag here
+        verify(channel, times(4)).basicAck(1, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void failuresThatCannotSucceedAreDeadLetteredAtOnce() throws Exception {
+        brokerAnswers(correlation -> correlation.getFuture().complete(new CorrelationData.Confirm(true, null)));
+
+        handler.reject(message(3, null), channel, new IllegalArgumentException("malformed JSON"), false);
+
+        assertThat(sent).extracting(Sent::queue).containsExactly(RabbitConfig.ORDERS_DEAD_LETTER_QUEUE);
+        verify(channel).basicAck(3, false);
+    }
+
+    @Test
+    void aNackedCopyLeavesTheOriginalRequeued() throws Exception {
+        brokerAnswers(correlation -> correlation.getFuture().complete(new CorrelationData.Confirm(false, "queue full")));
+
+        handler.reject(message(5, null), channel, new IllegalStateException("database down"), true);
+
+        verify(channel).basicNack(5, false, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void anUnroutableCopyLeavesTheOriginalRequeued() throws Exception {
+        brokerAnswers(correlation -> {
+            correlation.setReturned(new ReturnedMessage(new Message(new byte[0]), 312, "NO_ROUTE", "", "missing"));
+            correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+        });
+
+        handler.reject(message(6, null), channel, new IllegalStateException("database down"), true);
+
+        verify(channel).basicNack(6, false, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void anUnconfirmedCopyLeavesTheOriginalRequeued() throws Exception {
+        ingestionProperties.getRetry().setConfirmTimeout(Duration.ofMillis(50));
+        brokerAnswers(correlation -> {
+        });
+
+        handler.reject(message(7, 2), channel, new IllegalStateException("database down"), true);
+
+        verify(channel).basicNack(7, false, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    private void brokerAnswers(Consumer<CorrelationData> broker) {
+        doAnswer(invocation -> {
+            sent.add(new Sent(invocation.getArgument(1), invocation.getArgument(2)));
+            broker.accept(invocation.getArgument(3));
+            return null;
+        }).when(rabbitTemplate).send(eq(""), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static Message message(long deliveryTag, Integer attempts) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setMessageId("CMS-" + deliveryTag);
+        if (attempts != null) {
+            properties.setHeader(OrderFailureHandler.ATTEMPTS_HEADER, attempts);
+        }
+        return new Message("{}".getBytes(), properties);
+    }
+
+    private record Sent(String queue, Message message) {
+    }
+}
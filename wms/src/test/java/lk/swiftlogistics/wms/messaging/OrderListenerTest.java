@@ -0,0 +1,70 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.service.OrderIngestionService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderListenerTest {
+
+    private final OrderIngestionService orderIngestionService = mock(OrderIngestionService.class);
+
+    private final OrderListener listener = new OrderListener(orderIngestionService,
+            new CmsOrderDecoder(new ObjectMapper()), new DeliveryDateParser(ZoneId.of("Asia/Colombo")),
+            mock(OrderFailureHandler.class), mock(OrderWriteBehindBuffer.class), new SimpleMeterRegistry());
+
+    @Test
+    void packageWeightIsSetOnTheOrder() throws IOException {
+        List<Order> orders = ingest(
+                CmsOrderDecoderBenchmark.NESTED_LAYOUT,
+                "{\"orderId\":\"CMS-2\",\"package\":{\"weight\":\"12.75\",\"description\":\"Books\"}}",
+                "{\"orderId\":\"CMS-3\",\"package\":{\"weight\":\"heavy\",\"description\":\"Books\"}}",
+                CmsOrderDecoderBenchmark.FLAT_LAYOUT);
+
+        // A weight that is not a number is still kept in packageInfo, just not as the order's weight
+        assertThat(orders).extracting(Order::getWeight).containsExactly(2.5, 12.75, null, null);
+    }
+
+    @Test
+    void generatedPayloadWeightMatchesItsPackageInfo() throws IOException {
+        Order order = ingest(new String(CmsOrderPayloads.nested(1, new Random(42)), StandardCharsets.UTF_8)).get(0);
+
+        assertThat(order.getWeight()).isNotNull();
+        assertThat(order.getPackageInfo()).startsWith(order.getWeight() + "kg ");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Order> ingest(String... payloads) throws IOException {
+        when(orderIngestionService.saveBatch(anyList())).thenReturn(new OrderIngestionService.BatchResult(List.of(), 0));
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < payloads.length; i++) {
+            MessageProperties properties = new MessageProperties();
+            properties.setDeliveryTag(i + 1);
+            messages.add(new Message(payloads[i].getBytes(StandardCharsets.UTF_8), properties));
+        }
+        // The high lane saves its batch directly, without the write-behind buffer
+        listener.handleHighPriorityOrders(messages, mock(Channel.class));
+
+        ArgumentCaptor<List<Order>> saved = ArgumentCaptor.forClass(List.class);
+        verify(orderIngestionService).saveBatch(saved.capture());
+        return saved.getValue();
+    }
+}
@@ -0,0 +1,124 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.service.OrderIngestionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderWriteBehindBufferTest {
+
+    private final OrderIngestionService orderIngestionService = mock(OrderIngestionService.class);
+    private final OrderFailureHandler orderFailureHandler = mock(OrderFailureHandler.class);
+    private final OrderWriteBehindBuffer buffer = new OrderWriteBehindBuffer(orderIngestionService,
+            orderFailureHandler, new SimpleMeterRegistry(), new IngestionProperties());
+
+    @Test
+    void aCommittedGroupIsAckedOncePerChannelUpToItsLastDelivery() throws Exception {
+        when(orderIngestionService.saveBatch(anyList())).thenReturn(new OrderIngestionService.BatchResult(List.of(), 0));
+        Channel first = mock(Channel.class);
+        Channel second = mock(Channel.class);
+
+        put(first, 1);
+        put(second, 7);
+        put(first, 2);
+        put(second, 8);
+        put(first, 3);
+        commitBuffered();
+
+        verify(orderIngestionService).saveBatch(argThat(orders -> orders.size() == 5));
+        verify(first).basicAck(3, true);
+        verify(second).basicAck(8, true);
+        verifyNoMoreInteractions(first, second);
+    }
+
+    @Test
+    void aClosedChannelDoesNotStopTheOthersBeingAckedNorRecommitTheGroup() throws Exception {
+        when(orderIngestionService.saveBatch(anyList())).thenReturn(new OrderIngestionService.BatchResult(List.of(), 0));
+        Channel closed = mock(Channel.class);
+        Channel open = mock(Channel.class);
+        doThrow(new AlreadyClosedException(new ShutdownSignalException(false, false, null, null)))
+                .when(closed).basicAck(anyLong(), anyBoolean());
+
+        // The closed channel comes first, so its ack is attempted before the open one's
+        put(closed, 1);
+        put(closed, 2);
+        put(open, 5);
+        commitBuffered();
+
+        verify(orderIngestionService, times(1)).saveBatch(anyList());
+        verify(closed).basicAck(2, true);
+        verify(open).basicAck(5, true);
+        verifyNoMoreInteractions(closed, open);
+        verify(orderFailureHandler, never()).reject(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void aFailedGroupIsCommittedAndAckedOrderByOrder() throws Exception {
+        Order bad = new Order();
+        when(orderIngestionService.saveBatch(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            if (orders.size() > 1 || orders.get(0) == bad) {
+                throw new IllegalStateException("constraint violation");
+            }
+            return new OrderIngestionService.BatchResult(orders, 0);
+        });
+        Channel closed = mock(Channel.class);
+        Channel open = mock(Channel.class);
+        doThrow(new AlreadyClosedException(new ShutdownSignalException(false, false, null, null)))
+                .when(closed).basicAck(anyLong(), anyBoolean());
+
+        put(closed, 1);
+        Message badMessage = put(open, 4, bad);
+        put(open, 5);
+        commitBuffered();
+
+        // One group attempt, then each order on its own; a failed ack is not treated as a failed commit
+        verify(orderIngestionService, times(4)).saveBatch(anyList());
+        verify(closed).basicAck(1, false);
+        verify(open).basicAck(5, false);
+        verify(orderFailureHandler).reject(argThat(message -> message == badMessage), any(), any(), anyBoolean());
+        verifyNoMoreInteractions(closed, open, orderFailureHandler);
+    }
+
+    private void put(Channel channel, long deliveryTag) {
+        put(channel, deliveryTag, new Order());
+    }
+
+    private Message put(Channel channel, long deliveryTag, Order order) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        Message message = new Message(new byte[0], properties);
+        buffer.put(new OrderWriteBehindBuffer.PendingOrder(OrderLane.NORMAL, order, message, channel));
+        return message;
+    }
+
+    /**
+     * Everything is buffered before the writer starts, so it is committed as one group;
+     * stopping the writer waits for it to drain
+     */
+    private void commitBuffered() throws InterruptedException {
+        buffer.startWriter();
+        buffer.stopWriter();
+    }
+}
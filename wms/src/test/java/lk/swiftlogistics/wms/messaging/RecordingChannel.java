@@ -0,0 +1,64 @@
+package lk.swiftlogistics.wms.messaging;
+
+import com.rabbitmq.client.Channel;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * In-process stand-in for the consumer channel a broker would hand the listener.
+ * Records acknowledgements and treats every other call as a no-op.
+ */
+final class RecordingChannel implements InvocationHandler {
+
+    private long ackedUpTo;
+    private long nacked;
+
+    Channel channel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class}, this);
+    }
+
+    @Override
+    public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "basicAck" -> {
+                ackedUpTo = Math.max(ackedUpTo, (long) args[0]);
+            }
+            case "basicNack", "basicReject" -> nacked++;
+            case "isOpen" -> {
+                return true;
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "toString" -> {
+                return "RecordingChannel";
+            }
+            default -> {
+            }
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    synchronized long ackedUpTo() {
+        return ackedUpTo;
+    }
+
+    synchronized long nacked() {
+        return nacked;
+    }
+}
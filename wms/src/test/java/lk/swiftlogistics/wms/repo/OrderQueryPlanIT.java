@@ -0,0 +1,213 @@
+package lk.swiftlogistics.wms.repo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the hot order queries against an embedded Postgres migrated by Flyway and checks their plans,
+ * so a query change or a dropped index that sends them back to a sequential scan of orders fails the build.
+ *
+ * Each query is captured as Hibernate generates it and explained as a generic plan (Postgres 16+).
+ * Sequential scans are disabled for the session, so on the nearly empty test table the planner
+ * only falls back to one when no index can serve the query.
+ *
+ * Runs with mvn verify. Postgres refuses to run as root, so this needs a non-root user.
+ */
+@SpringBootTest
+@ActiveProfiles("embedded")
+class OrderQueryPlanIT {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    private static final EnumSet<OrderStatus> ACTIVE = EnumSet.of(OrderStatus.RECEIVED, OrderStatus.READY_TO_DISPATCH);
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                CapturingInspector.class::getName);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderArchivingRepository archivingRepository;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void listingByStatusUsesStatusIndex() throws SQLException {
+        assertIndexScan(() -> orderRepository.findByStatusAfter(OrderStatus.RECEIVED, 0, Limit.of(100)),
+                "idx_orders_status_id");
+    }
+
+    @Test
+    void listingByDeliveryDateAndStatusUsesStatusDateIndex() throws SQLException {
+        assertIndexScan(() -> orderRepository.findByDeliveryDateAndStatusAfter(
+                        now.plusDays(1), OrderStatus.READY_TO_DISPATCH, now, 0, Limit.of(100)),
+                "idx_orders_status_delivery_date_id");
+    }
+
+    @Test
+    void listingByDeliveryDateUsesDateIndex() throws SQLException {
+        assertIndexScan(() -> orderRepository.findByDeliveryDateAfter(now.plusDays(1), now, 0, Limit.of(100)),
+                "idx_orders_delivery_date_id");
+    }
+
+    @Test
+    void unassignedListingUsesPartialIndex() throws SQLException {
+        assertIndexScan(() -> orderRepository.findUnassignedAfter(0, Limit.of(100)),
+                "idx_orders_unassigned_id");
+    }
+
+    @Test
+    void driverQueriesUseDriverIndex() throws SQLException {
+        assertIndexScan(() -> orderRepository.findByDriverAfter(1L, 0, Limit.of(100)),
+                "idx_orders_driver_id_status");
+        assertIndexScan(() -> orderRepository.findByAssignedDriverId(1L),
+                "idx_orders_driver_id_status");
+        assertIndexScan(() -> orderRepository.existsByAssignedDriverIdAndStatusIn(1L, ACTIVE),
+                "idx_orders_driver_id_status");
+        assertIndexScan(() -> orderRepository.countByAssignedDriverIdAndStatus(1L, OrderStatus.READY_TO_DISPATCH),
+                "idx_orders_driver_id_status");
+    }
+
+    @Test
+    void driverSummariesDoNotScanOrders() throws SQLException {
+        // Aggregates over every driver, so reading the active orders by status is as good as by driver
+        assertThat(planOf(() -> driverRepository.findDriverSummaries(ACTIVE))).doesNotContain("Seq Scan on orders");
+    }
+
+    @Test
+    void clientRefLookupUsesUniqueIndex() throws SQLException {
+        assertIndexScan(() -> orderRepository.findByClientRef("CMS-1"), "orders_client_ref_key");
+    }
+
+    @Test
+    void archiveHistoryUsesEachPartitionsIndexes() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            archivingRepository.createPartition(YearMonth.from(now).minusMonths(i));
+        }
+        assertThat(planOf(() -> archivedOrderRepository.findByDeliveryDateAfter(now, now.minusMonths(2), 0, Limit.of(100))))
+                .doesNotContain("Seq Scan on orders_archive")
+                .contains("delivery_date_id_idx");
+        assertThat(planOf(() -> archivedOrderRepository.findSummaryByClientRef("CMS-1")))
+                .doesNotContain("Seq Scan on orders_archive")
+                .contains("client_ref_idx");
+    }
+
+    private static void assertIndexScan(Runnable query, String expectedIndex) throws SQLException {
+        assertThat(planOf(query))
+                .doesNotContain("Seq Scan on orders")
+                .contains(expectedIndex);
+    }
+
+    /**
+     * Runs the query and explains the one statement Hibernate issued for it
+     */
+    private static String planOf(Runnable query) throws SQLException {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        assertThat(CapturingInspector.STATEMENTS).hasSize(1);
+        String sql = CapturingInspector.STATEMENTS.get(0);
+        return "Plan for " + sql + "\n" + explain(sql);
+    }
+
+    /**
+     * Uses its own connection in simple query mode, so the driver sends the $n placeholders unbound
+     */
+    private static String explain(String sql) throws SQLException {
+        String url = POSTGRES.getJdbcUrl("postgres", "postgres") + "&preferQueryMode=simple";
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+            StringJoiner plan = new StringJoiner("\n");
+            try (ResultSet rows = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql))) {
+                while (rows.next()) {
+                    plan.add(rows.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * JDBC ? placeholders to the $n form EXPLAIN accepts; none of the generated queries has ? in a literal
+     */
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Postgres", e);
+        }
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares, unchanged
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
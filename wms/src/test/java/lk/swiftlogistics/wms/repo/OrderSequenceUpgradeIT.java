@@ -0,0 +1,62 @@
+package lk.swiftlogistics.wms.repo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lk.swiftlogistics.wms.domain.Order;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrading a database that predates Flyway: the schema ddl-auto created, with orders numbered by the old
+ * IDENTITY column and orders_seq still at its start, baselined at V1 as application.yml configures.
+ * After the migrations, the next block of ids the sequence hands out must be free.
+ *
+ * Runs with mvn verify, as a non-root user.
+ */
+class OrderSequenceUpgradeIT {
+
+    @Test
+    void upgradeMovesTheOrderSequencePastExistingIds() throws IOException, SQLException {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(baselineSchema());
+            statement.execute("""
+                    INSERT INTO orders (id, client_ref, customer_name, delivery_address, delivery_date, status,
+                                        created_at, updated_at)
+                    SELECT n, 'OLD-' || n, 'Customer', 'Colombo', now(), 'DELIVERED', now(), now()
+                    FROM generate_series(1, 500) n
+                    """);
+
+            Flyway.configure()
+                    .dataSource(postgres.getPostgresDatabase())
+                    .baselineOnMigrate(true)
+                    .baselineVersion("1")
+                    .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                    .load()
+                    .migrate();
+
+            // The pooled optimizer uses the block (nextval - allocation size, nextval]
+            try (ResultSet rs = statement.executeQuery("SELECT nextval('orders_seq')")) {
+                rs.next();
+                assertThat(rs.getLong(1) - Order.ID_ALLOCATION_SIZE + 1).isGreaterThan(500);
+            }
+        }
+    }
+
+    private static String baselineSchema() throws IOException {
+        try (InputStream in = OrderSequenceUpgradeIT.class.getResourceAsStream("/db/migration/V1__baseline.sql")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package lk.swiftlogistics.wms.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import lk.swiftlogistics.wms.config.IngestionProperties;
+import lk.swiftlogistics.wms.config.RabbitConfig;
+import lk.swiftlogistics.wms.messaging.OrderFailureHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterServiceTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final Channel channel = mock(Channel.class);
+    private final DeadLetterService deadLetterService = new DeadLetterService(rabbitTemplate, new IngestionProperties());
+
+    DeadLetterServiceTest() throws Exception {
+        // As RabbitTemplate does, run the callback and translate what it throws
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation -> {
+            try {
+                return ((ChannelCallback<?>) invocation.getArgument(0)).doInRabbit(channel);
+            } catch (Exception e) {
+                throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+            }
+        });
+        when(channel.basicGet(RabbitConfig.ORDERS_DEAD_LETTER_QUEUE, false))
+                .thenReturn(deadLetter(11, "CMS-1"), deadLetter(12, "CMS-2"), null);
+    }
+
+    @Test
+    void replayedMessagesGoBackToTheOrdersQueueWithAFreshAttemptCount() throws Exception {
+        assertThat(deadLetterService.replay(10)).isEqualTo(2);
+
+        ArgumentCaptor<AMQP.BasicProperties> properties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        InOrder order = inOrder(channel);
+        order.verify(channel).confirmSelect();
+        order.verify(channel, times(2))
+                .basicPublish(eq(""), eq(RabbitConfig.ORDERS_QUEUE), eq(true), properties.capture(), any());
+        // The dead letters are acked only once the broker has confirmed every copy
+        order.verify(channel).waitForConfirmsOrDie(anyLong());
+        order.verify(channel).basicAck(12, true);
+        assertThat(properties.getAllValues()).extracting(AMQP.BasicProperties::getMessageId).containsExactly("CMS-1", "CMS-2");
+        assertThat(properties.getAllValues().get(0).getHeaders())
+                .containsOnlyKeys("source");
+    }
+
+    @Test
+    void replayStopsAtTheLimit() throws Exception {
+        assertThat(deadLetterService.replay(1)).isEqualTo(1);
+
+        verify(channel).basicAck(11, true);
+    }
+
+    @Test
+    void unconfirmedCopiesLeaveTheDeadLettersInPlace() throws Exception {
+        doThrow(new TimeoutException("no confirm")).when(channel).waitForConfirmsOrDie(anyLong());
+
+        assertThatThrownBy(() -> deadLetterService.replay(10)).isInstanceOf(AmqpException.class);
+
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void unroutableCopiesLeaveTheDeadLettersInPlace() throws Exception {
+        doAnswer(invocation -> {
+            ReturnListener listener = invocation.getArgument(0);
+            doAnswer(publish -> {
+                listener.handleReturn(312, "NO_ROUTE", "", RabbitConfig.ORDERS_QUEUE, publish.getArgument(3), publish.getArgument(4));
+                return null;
+            }).when(channel).basicPublish(anyString(), anyString(), anyBoolean(), any(), any());
+            return null;
+        }).when(channel).addReturnListener(any(ReturnListener.class));
+
+        assertThatThrownBy(() -> deadLetterService.replay(10)).isInstanceOf(AmqpException.class);
+
+        verify(channel).basicNack(12, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(channel).removeReturnListener(any(ReturnListener.class));
+    }
+
+    private static GetResponse deadLetter(long deliveryTag, String messageId) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .messageId(messageId)
+                .headers(Map.of(
+                        "source", "cms",
+                        OrderFailureHandler.ATTEMPTS_HEADER, 4,
+                        OrderFailureHandler.FAILURE_REASON_HEADER, "database down",
+                        OrderFailureHandler.FAILURE_EXCEPTION_HEADER, IOException.class.getName(),
+                        OrderFailureHandler.FAILED_AT_HEADER, "2024-06-01T08:00:00Z"))
+                .build();
+        return new GetResponse(new Envelope(deliveryTag, false, "", RabbitConfig.ORDERS_DEAD_LETTER_QUEUE),
+                properties, "{}".getBytes(), 0);
+    }
+}
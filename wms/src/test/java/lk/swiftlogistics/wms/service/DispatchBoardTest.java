@@ -0,0 +1,205 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lk.swiftlogistics.wms.config.DispatchBoardProperties;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DispatchBoardTest {
+
+    private static final LocalDateTime DUE = LocalDateTime.of(2024, 6, 1, 14, 0);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final DriverRepository driverRepository = mock(DriverRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DispatchBoard board = new DispatchBoard(orderRepository, driverRepository, new DispatchBoardProperties(),
+            mock(TaskScheduler.class), mock(PlatformTransactionManager.class), meterRegistry);
+
+    // What the next consistency check reads from the database
+    private final List<OrderSummary> databaseOrders = new ArrayList<>();
+    private final List<Driver> databaseDrivers = new ArrayList<>();
+
+    DispatchBoardTest() {
+        when(orderRepository.findUnassignedInStatuses(any())).thenAnswer(invocation -> List.copyOf(databaseOrders));
+        when(driverRepository.findByAvailable(true)).thenAnswer(invocation -> List.copyOf(databaseDrivers));
+    }
+
+    @AfterEach
+    void endTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesApplyOnlyOnceTheirTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        board.orderChanged(order(1, OrderStatus.RECEIVED, null));
+        board.driverChanged(driver(10, true));
+
+        assertThat(board.receivedOrders()).isEmpty();
+        assertThat(board.availableDrivers()).isEmpty();
+
+        commit();
+        assertThat(board.receivedOrders()).extracting(OrderSummary::id).containsExactly(1L);
+        assertThat(board.availableDrivers()).extracting(Driver::getId).containsExactly(10L);
+    }
+
+    @Test
+    void rolledBackChangesNeverReachTheBoard() {
+        board.orderChanged(order(1, OrderStatus.RECEIVED, null));
+
+        TransactionSynchronizationManager.initSynchronization();
+        board.orderChanged(order(1, OrderStatus.READY_TO_DISPATCH, driver(10, false)));
+        board.orderChanged(order(2, OrderStatus.RECEIVED, null));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(board.receivedOrders()).extracting(OrderSummary::id).containsExactly(1L);
+    }
+
+    @Test
+    void ordersLeaveTheBoardOnceAssignedOrDelivered() {
+        Driver driver = driver(10, true);
+        board.ordersChanged(List.of(order(1, OrderStatus.RECEIVED, null), order(2, OrderStatus.RECEIVED, null),
+                order(3, OrderStatus.RECEIVED, null)));
+        board.driverChanged(driver);
+
+        driver.setAvailable(false);
+        board.ordersChanged(List.of(order(1, OrderStatus.READY_TO_DISPATCH, driver), order(2, OrderStatus.DELIVERED, null)));
+        board.driverChanged(driver);
+
+        assertThat(board.receivedOrders()).extracting(OrderSummary::id).containsExactly(3L);
+        assertThat(board.mostUrgent(10)).extracting(OrderSummary::id).containsExactly(3L);
+        assertThat(board.availableDrivers()).isEmpty();
+    }
+
+    @Test
+    void checkRepairsDriftFromTheDatabase() {
+        board.orderChanged(order(1, OrderStatus.RECEIVED, null));
+        board.orderChanged(order(2, OrderStatus.RECEIVED, null));
+        board.driverChanged(driver(10, true));
+        // Changed outside the application: order 1 delivered, order 2 re-prioritised, order 3 and driver 20 added,
+        // driver 10 made unavailable
+        databaseOrders.add(summary(2, "High"));
+        databaseOrders.add(summary(3, "Medium"));
+        databaseDrivers.add(driver(20, true));
+
+        board.checkForDrift();
+
+        assertThat(board.receivedOrders()).extracting(OrderSummary::id, OrderSummary::priority)
+                .containsExactly(tuple(2L, "High"), tuple(3L, "Medium"));
+        assertThat(board.mostUrgent(1)).extracting(OrderSummary::id).containsExactly(2L);
+        assertThat(board.availableDrivers()).extracting(Driver::getId).containsExactly(20L);
+        assertThat(meterRegistry.get("wms.dispatch.board.drift").counter().count()).isEqualTo(5);
+
+        // Nothing left to repair
+        board.checkForDrift();
+        assertThat(meterRegistry.get("wms.dispatch.board.drift").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void aSnapshotReadBeforeAChangeDoesNotUndoIt() {
+        Driver driver = driver(10, true);
+        board.ordersChanged(List.of(order(1, OrderStatus.RECEIVED, null), order(2, OrderStatus.RECEIVED, null)));
+        board.driverChanged(driver);
+        databaseOrders.add(summary(1, "Medium"));
+        databaseOrders.add(summary(2, "Medium"));
+        databaseDrivers.add(driver(10, true));
+
+        // The snapshot is read, then order 1 is assigned, order 4 ingested and the driver taken before the check applies it
+        Driver taken = driver(10, false);
+        when(orderRepository.findUnassignedInStatuses(any())).thenAnswer(invocation -> {
+            List<OrderSummary> snapshot = List.copyOf(databaseOrders);
+            board.ordersChanged(List.of(order(1, OrderStatus.READY_TO_DISPATCH, taken), order(4, OrderStatus.RECEIVED, null)));
+            board.driverChanged(taken);
+            return snapshot;
+        });
+
+        assertThat(board.check()).isZero();
+        assertThat(board.receivedOrders()).extracting(OrderSummary::id).containsExactly(2L, 4L);
+        assertThat(board.availableDrivers()).isEmpty();
+    }
+
+    @Test
+    void aSnapshotReadAfterAChangeRepairsIt() {
+        board.orderChanged(order(1, OrderStatus.RECEIVED, null));
+        board.driverChanged(driver(10, true));
+
+        // The change was applied before the snapshot, so the database has moved on since: it no longer holds
+        assertThat(board.check()).isEqualTo(2);
+        assertThat(board.receivedOrders()).isEmpty();
+        assertThat(board.availableDrivers()).isEmpty();
+    }
+
+    @Test
+    void aChangeIsOnlyProtectedFromTheFirstSnapshotOlderThanIt() {
+        when(orderRepository.findUnassignedInStatuses(any())).thenAnswer(invocation -> {
+            List<OrderSummary> snapshot = List.copyOf(databaseOrders);
+            board.orderChanged(order(1, OrderStatus.RECEIVED, null));
+            return snapshot;
+        });
+        assertThat(board.check()).isZero();
+        assertThat(board.receivedOrders()).extracting(OrderSummary::id).containsExactly(1L);
+
+        // A later snapshot that still lacks the order means it really is gone
+        when(orderRepository.findUnassignedInStatuses(any())).thenAnswer(invocation -> List.copyOf(databaseOrders));
+        assertThat(board.check()).isEqualTo(1);
+        assertThat(board.receivedOrders()).isEmpty();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static Order order(long id, OrderStatus status, Driver driver) {
+        Order order = new Order();
+        order.setId(id);
+        order.setClientRef("CMS-" + id);
+        order.setCustomerName("Customer " + id);
+        order.setDeliveryAddress("Colombo");
+        order.setDeliveryDate(DUE);
+        order.setStatus(status);
+        order.setPriority("Medium");
+        order.setAssignedDriver(driver);
+        return order;
+    }
+
+    private static OrderSummary summary(long id, String priority) {
+        Order order = order(id, OrderStatus.RECEIVED, null);
+        order.setPriority(priority);
+        return OrderSummary.of(order);
+    }
+
+    private static Driver driver(long id, boolean available) {
+        Driver driver = new Driver();
+        driver.setId(id);
+        driver.setName("Driver " + id);
+        driver.setLicenseNumber("LIC-" + id);
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail("driver" + id + "@swiftlogistics.lk");
+        driver.setAvailable(available);
+        return driver;
+    }
+}
@@ -0,0 +1,80 @@
+package lk.swiftlogistics.wms.service;
+
+import lk.swiftlogistics.wms.config.AutoDispatchProperties;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning an automatic dispatch run for 100k waiting orders across 1k available drivers, as
+ * AutoDispatcher does from the dispatch board. Orders are due from yesterday to four days out, with mixed
+ * priorities and 0.2-40 kg weights (some missing); drivers carry 200-1500 kg (some the default).
+ * parallelThreshold=2147483647 plans entirely on the calling thread.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=DispatchPlanner
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchPlannerBenchmark {
+
+    private static final String[] PRIORITIES = {"High", "Medium", "Low", null};
+
+    @Param("100000")
+    public int orderCount;
+
+    @Param("1000")
+    public int driverCount;
+
+    @Param({"10000", "2147483647"})
+    public int parallelThreshold;
+
+    private DispatchPlanner planner;
+    private List<OrderSummary> orders;
+    private List<Driver> drivers;
+    private LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(42);
+        now = LocalDateTime.of(2024, 6, 1, 8, 0);
+        orders = new ArrayList<>(orderCount);
+        for (long id = 1; id <= orderCount; id++) {
+            LocalDateTime due = now.minusDays(1).plusMinutes(random.nextInt(5 * 24 * 60));
+            Double weight = random.nextInt(20) == 0 ? null : 0.2 + random.nextDouble() * 39.8;
+            orders.add(new OrderSummary(id, "CMS-" + id, "CMS-" + id, "Customer " + id, "Colombo", due,
+                    OrderStatus.RECEIVED, PRIORITIES[random.nextInt(PRIORITIES.length)], null, weight, null,
+                    now, now, null, null));
+        }
+        drivers = new ArrayList<>(driverCount);
+        for (long id = 1; id <= driverCount; id++) {
+            Driver driver = new Driver();
+            driver.setId(id);
+            driver.setWeightCapacity(random.nextInt(10) == 0 ? null : 200.0 + random.nextInt(1301));
+            drivers.add(driver);
+        }
+
+        AutoDispatchProperties properties = new AutoDispatchProperties();
+        properties.setParallelThreshold(parallelThreshold);
+        planner = new DispatchPlanner(properties);
+
+        DispatchPlanner.Plan plan = planner.plan(orders, drivers, now);
+        System.out.printf("%nPlan: %d orders for %d drivers; %d without room, %d oversized, %d beyond the horizon%n",
+                plan.plannedOrders(), plan.loads().size(), plan.unplaced(), plan.oversized().size(), plan.deferred());
+    }
+
+    @Benchmark
+    public DispatchPlanner.Plan plan() {
+        return planner.plan(orders, drivers, now);
+    }
+}
@@ -0,0 +1,78 @@
+package lk.swiftlogistics.wms.service;
+
+import lk.swiftlogistics.wms.config.AutoDispatchProperties;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class DispatchPlannerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    private final AutoDispatchProperties properties = new AutoDispatchProperties();
+
+    @Test
+    void ordersDueSoonestGoFirstThenByPriority() {
+        DispatchPlanner.Plan plan = new DispatchPlanner(properties).plan(List.of(
+                order(1, "High", NOW.plusDays(1), 5.0),
+                order(2, "Low", NOW.plusHours(6), 5.0),
+                order(3, "High", NOW.minusDays(3), 5.0),
+                order(4, "Medium", NOW.plusHours(2), 5.0)), List.of(driver(10, 10.0)), NOW);
+
+        // Overdue counts as due today, so High order 3 beats Medium order 4; both beat everything due later
+        assertThat(plan.loads()).extracting(DispatchPlanner.Load::orderIds).containsExactly(List.of(3L, 4L));
+        assertThat(plan.unplaced()).isEqualTo(2);
+    }
+
+    @Test
+    void heaviestOrdersGoToTheDriverTheyFitMostTightly() {
+        DispatchPlanner.Plan plan = new DispatchPlanner(properties).plan(List.of(
+                order(1, "Medium", NOW, 2.0),
+                order(2, "Medium", NOW, 9.0),
+                order(3, "Medium", NOW, 9.0),
+                order(4, "Medium", NOW, 1.0)), List.of(driver(10, 10.0), driver(20, 20.0)), NOW);
+
+        assertThat(plan.loads()).extracting(DispatchPlanner.Load::driverId, DispatchPlanner.Load::orderIds)
+                .containsExactly(tuple(10L, List.of(2L, 4L)), tuple(20L, List.of(3L, 1L)));
+    }
+
+    @Test
+    void leavesOutOrdersNoDriverCanTakeNow() {
+        properties.setMaxOrdersPerDriver(2);
+        properties.setDefaultCapacity(50);
+        OrderSummary assigned = new OrderSummary(6L, "CMS-6", "CMS-6", "Customer", "Colombo", NOW,
+                OrderStatus.READY_TO_DISPATCH, "High", null, 1.0, null, NOW, NOW, 30L, "Driver");
+
+        DispatchPlanner.Plan plan = new DispatchPlanner(properties).plan(List.of(
+                order(1, "High", NOW, 80.0),
+                order(2, "High", NOW.plusDays(3), 1.0),
+                order(3, "Medium", NOW, null),
+                order(4, "Medium", NOW, 1.0),
+                order(5, "Low", NOW, 1.0),
+                assigned), List.of(driver(10, null)), NOW);
+
+        assertThat(plan.oversized()).containsExactly(1L);
+        assertThat(plan.deferred()).isEqualTo(1);
+        assertThat(plan.loads()).extracting(DispatchPlanner.Load::orderIds).containsExactly(List.of(3L, 4L));
+        assertThat(plan.unplaced()).isEqualTo(1);
+    }
+
+    private static OrderSummary order(long id, String priority, LocalDateTime due, Double weight) {
+        return new OrderSummary(id, "CMS-" + id, "CMS-" + id, "Customer", "Colombo", due, OrderStatus.RECEIVED,
+                priority, null, weight, null, NOW, NOW, null, null);
+    }
+
+    private static Driver driver(long id, Double weightCapacity) {
+        Driver driver = new Driver();
+        driver.setId(id);
+        driver.setWeightCapacity(weightCapacity);
+        return driver;
+    }
+}
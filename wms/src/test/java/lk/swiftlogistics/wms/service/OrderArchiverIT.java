@@ -0,0 +1,125 @@
+package lk.swiftlogistics.wms.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Archives delivered orders on an embedded Postgres migrated by Flyway. A batch size of 2 makes
+ * every month take several batches. Runs with mvn verify, as a non-root user.
+ */
+@SpringBootTest(properties = "wms.archive.batch-size=2")
+@ActiveProfiles("embedded")
+class OrderArchiverIT {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Test
+    void movesOldDeliveredOrdersAndKeepsThemFindable() {
+        LocalDateTime now = LocalDateTime.now();
+        Driver driver = driverRepository.save(driver());
+        List<Order> old = orderRepository.saveAll(List.of(
+                order("ARC-1", now.minusDays(200), OrderStatus.DELIVERED, driver, "High"),
+                order("ARC-2", now.minusDays(200).plusHours(1), OrderStatus.DELIVERED, driver, "Medium"),
+                order("ARC-3", now.minusDays(200).plusHours(2), OrderStatus.DELIVERED, driver, "Medium"),
+                order("ARC-4", now.minusDays(150), OrderStatus.DELIVERED, driver, "High")));
+        Order recent = orderRepository.save(order("ARC-5", now.minusDays(10), OrderStatus.DELIVERED, driver, "Medium"));
+        Order undelivered = orderRepository.save(order("ARC-6", now.minusDays(200), OrderStatus.READY_TO_DISPATCH, driver, "Medium"));
+        Map<String, Object> statsBefore = orderService.getOrderStatistics();
+
+        assertThat(orderArchiver.archive()).isEqualTo(4);
+        assertThat(orderArchiver.archive()).isZero();
+
+        assertThat(orderRepository.findAllById(List.of(old.get(0).getId(), recent.getId(), undelivered.getId())))
+                .extracting(Order::getClientRef)
+                .containsExactlyInAnyOrder("ARC-5", "ARC-6");
+        assertThat(orderService.getOrderById(old.get(0).getId(), false)).isEmpty();
+        assertThat(orderService.getOrderByClientRef("ARC-1", true))
+                .hasValueSatisfying(order -> assertThat(order.driverName()).isEqualTo(driver.getName()));
+        assertThat(orderService.getOrderStatistics()).isEqualTo(statsBefore);
+        assertThat(orderService.getDriverPerformance(driver.getId())).containsEntry("totalDeliveries", 5L);
+
+        List<String> history = orderService.getOrdersByDeliveryDateRange(now.minusDays(365), now, null, true, null, 100)
+                .orders().stream().map(OrderSummary::clientRef).toList();
+        assertThat(history).containsExactly("ARC-1", "ARC-6", "ARC-2", "ARC-3", "ARC-4", "ARC-5");
+        assertThat(orderService.getOrdersByDeliveryDateRange(now.minusDays(365), now, null, false, null, 100).orders())
+                .extracting(OrderSummary::clientRef)
+                .containsExactly("ARC-6", "ARC-5");
+    }
+
+    private static Driver driver() {
+        Driver driver = new Driver();
+        driver.setName("Archive Driver");
+        driver.setLicenseNumber("ARC-LIC");
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail("archive@swiftlogistics.lk");
+        driver.setAvailable(false);
+        return driver;
+    }
+
+    private static Order order(String clientRef, LocalDateTime deliveryDate, OrderStatus status, Driver driver, String priority) {
+        Order order = new Order();
+        order.setClientRef(clientRef);
+        order.setCustomerName("Customer " + clientRef);
+        order.setDeliveryAddress("1 Galle Road, Colombo 03");
+        order.setDeliveryDate(deliveryDate);
+        order.setStatus(status);
+        order.setAssignedDriver(driver);
+        order.setPriority(priority);
+        return order;
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Postgres", e);
+        }
+    }
+}
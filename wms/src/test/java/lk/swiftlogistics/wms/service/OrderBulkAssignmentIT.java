@@ -0,0 +1,207 @@
+package lk.swiftlogistics.wms.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderBatchRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Set-based bulk assignment (UPDATE ... RETURNING) on an embedded Postgres migrated by Flyway:
+ * 10,000 ids in one request, the per-order outcomes, and overlapping requests racing for the same orders.
+ * Runs with mvn verify, as a non-root user.
+ */
+@SpringBootTest(properties = "wms.stats.in-memory=true")
+@ActiveProfiles("embedded")
+class OrderBulkAssignmentIT {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatisticsService orderStatistics;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void assignsTenThousandOrdersAndReportsTheRest() {
+        Driver driver = driverRepository.save(driver("BULK"));
+        Driver other = driverRepository.save(driver("BULK-OTHER"));
+        List<Order> waiting = insert("BULK", 10_000);
+        Order taken = orderRepository.save(order("BULK-TAKEN", OrderStatus.READY_TO_DISPATCH, other));
+        Order delivered = orderRepository.save(order("BULK-DELIVERED", OrderStatus.DELIVERED, null));
+        orderStatistics.reconcile();
+
+        List<Long> ids = new ArrayList<>(waiting.stream().map(Order::getId).toList());
+        ids.addAll(List.of(taken.getId(), delivered.getId(), -1L));
+        ids.add(waiting.get(0).getId());
+
+        long started = System.nanoTime();
+        OrderService.BulkAssignment result = orderService.bulkAssignDriver(ids, driver.getId());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        System.out.printf("bulk-assign-driver: %d orders assigned in %d ms%n", result.assigned().size(), elapsedMillis);
+
+        assertThat(result.assigned()).extracting(Order::getId)
+                .containsExactlyElementsOf(waiting.stream().map(Order::getId).sorted().toList());
+        assertThat(result.assigned()).allSatisfy(order -> {
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.READY_TO_DISPATCH);
+            assertThat(order.getVersion()).isEqualTo(1L);
+        });
+        assertThat(result.alreadyAssigned()).containsExactly(taken.getId());
+        assertThat(result.wrongStatus()).containsExactly(delivered.getId());
+        assertThat(result.notFound()).containsExactly(-1L);
+
+        assertThat(orderService.getOrdersByDriver(driver.getId())).hasSize(waiting.size());
+        assertThat(driverRepository.findById(driver.getId())).hasValueSatisfying(d -> assertThat(d.isAvailable()).isFalse());
+        Map<String, Object> counted = orderStatistics.getOrderStatistics();
+        orderStatistics.reconcile();
+        assertThat(counted).isEqualTo(orderStatistics.getOrderStatistics());
+    }
+
+    @Test
+    void leavesTheDriverAvailableWhenNothingIsEligible() {
+        Driver driver = driverRepository.save(driver("NONE"));
+        Order delivered = orderRepository.save(order("NONE-DELIVERED", OrderStatus.DELIVERED, null));
+
+        OrderService.BulkAssignment result = orderService.bulkAssignDriver(List.of(delivered.getId(), -2L), driver.getId());
+
+        assertThat(result.assigned()).isEmpty();
+        assertThat(result.wrongStatus()).containsExactly(delivered.getId());
+        assertThat(result.notFound()).containsExactly(-2L);
+        assertThat(driverRepository.findById(driver.getId())).hasValueSatisfying(d -> assertThat(d.isAvailable()).isTrue());
+    }
+
+    @Test
+    void overlappingRequestsTakeEachOrderOnce() throws InterruptedException {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            drivers.add(driverRepository.save(driver("OVERLAP-" + i)));
+        }
+        List<Long> ids = insert("OVERLAP", 3_000).stream().map(Order::getId).toList();
+
+        // Each dispatcher asks for a random half of the same orders
+        Map<Long, Long> claimedBy = new ConcurrentHashMap<>();
+        List<Long> doubleClaims = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(drivers.size());
+        Random random = new Random(5);
+        for (Driver driver : drivers) {
+            List<Long> request = new ArrayList<>(ids);
+            Collections.shuffle(request, random);
+            List<Long> half = request.subList(0, ids.size() / 2);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    orderService.bulkAssignDriver(half, driver.getId()).assigned().forEach(order -> {
+                        if (claimedBy.putIfAbsent(order.getId(), driver.getId()) != null) {
+                            doubleClaims.add(order.getId());
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(doubleClaims).isEmpty();
+        List<Order> stored = transactionTemplate.execute(status -> orderRepository.findAllById(ids).stream()
+                .filter(order -> order.getAssignedDriver() != null)
+                .toList());
+        assertThat(stored).hasSize(claimedBy.size());
+        assertThat(stored).allSatisfy(order ->
+                assertThat(order.getAssignedDriver().getId()).isEqualTo(claimedBy.get(order.getId())));
+    }
+
+    private List<Order> insert(String prefix, int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(prefix + "-ORD-" + i, OrderStatus.RECEIVED, null));
+        }
+        return transactionTemplate.execute(status -> orderBatchRepository.insertIgnoringDuplicates(orders));
+    }
+
+    private static Driver driver(String name) {
+        Driver driver = new Driver();
+        driver.setName("Driver " + name);
+        driver.setLicenseNumber("LIC-" + name);
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail(name.toLowerCase() + "@swiftlogistics.lk");
+        driver.setAvailable(true);
+        return driver;
+    }
+
+    private static Order order(String clientRef, OrderStatus status, Driver driver) {
+        Order order = new Order();
+        order.setClientRef(clientRef);
+        order.setCustomerName("Customer " + clientRef);
+        order.setDeliveryAddress("1 Galle Road, Colombo 03");
+        order.setDeliveryDate(LocalDateTime.now().plusDays(1));
+        order.setStatus(status);
+        order.setAssignedDriver(driver);
+        return order;
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Postgres", e);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package lk.swiftlogistics.wms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dispatchers racing for the same drivers and orders, and drivers confirming the same deliveries, on an
+ * embedded Postgres migrated by Flyway. Checks that no driver or order is taken twice and that the in-memory
+ * statistics counted each change once; prints the writes per second under contention and how many were
+ * retried. Runs with mvn verify, as a non-root user.
+ */
+@SpringBootTest(properties = {"wms.stats.in-memory=true", "wms.conflict-retry.max-attempts=5"})
+@ActiveProfiles("embedded")
+class OrderContentionIT {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+    private static final int THREADS = 16;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatisticsService orderStatistics;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void racingDispatchersTakeEachDriverAndOrderOnce() throws InterruptedException {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            drivers.add(driverRepository.save(driver("RACE-" + i)));
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            orders.add(order("RACE-ORD-" + i, OrderStatus.RECEIVED, null));
+        }
+        orders = orderRepository.saveAll(orders);
+        orderStatistics.reconcile();
+
+        // Every dispatcher tries every driver on every order, in a different order
+        List<long[]> attempts = new ArrayList<>();
+        for (Order order : orders) {
+            for (Driver driver : drivers) {
+                attempts.add(new long[] {order.getId(), driver.getId()});
+            }
+        }
+        Collections.shuffle(attempts, new Random(7));
+        Queue<Order> assigned = new ConcurrentLinkedQueue<>();
+
+        Outcome outcome = race(attempts, pair -> assigned.add(orderService.assignDriverToOrder(pair[0], pair[1])));
+
+        assertThat(outcome.conflicts()).isZero();
+        assertThat(assigned).extracting(order -> order.getAssignedDriver().getId()).doesNotHaveDuplicates();
+        assertThat(assigned).extracting(Order::getId).doesNotHaveDuplicates();
+        assertThat(assigned).hasSize(drivers.size());
+        List<Order> stored = orderRepository.findAllById(orders.stream().map(Order::getId).toList());
+        assertThat(stored).filteredOn(order -> order.getStatus() == OrderStatus.READY_TO_DISPATCH).hasSize(drivers.size());
+        assertThat(driverRepository.findAllById(drivers.stream().map(Driver::getId).toList()))
+                .noneMatch(Driver::isAvailable);
+        assertCountedOnce();
+        outcome.print("assign-driver");
+    }
+
+    @Test
+    void racingConfirmationsDeliverEachOrderOnce() throws InterruptedException {
+        Driver driver = driverRepository.save(driver("DELIVER"));
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            orders.add(order("DELIVER-ORD-" + i, OrderStatus.READY_TO_DISPATCH, driver));
+        }
+        orders = orderRepository.saveAll(orders);
+        orderStatistics.reconcile();
+
+        // Every driver app confirms every delivery, as a retrying client would
+        List<long[]> attempts = new ArrayList<>();
+        for (int copy = 0; copy < 4; copy++) {
+            orders.forEach(order -> attempts.add(new long[] {order.getId()}));
+        }
+        Collections.shuffle(attempts, new Random(11));
+        AtomicInteger delivered = new AtomicInteger();
+
+        Outcome outcome = race(attempts, id -> {
+            orderService.updateOrderStatus(id[0], OrderStatus.DELIVERED);
+            delivered.incrementAndGet();
+            return true;
+        });
+
+        assertThat(outcome.conflicts()).isZero();
+        assertThat(delivered).hasValue(orders.size());
+        assertThat(orderRepository.findAllById(orders.stream().map(Order::getId).toList()))
+                .allMatch(order -> order.getStatus() == OrderStatus.DELIVERED);
+        assertCountedOnce();
+        outcome.print("update-status");
+    }
+
+    @Test
+    void racingBatchConfirmationsDeliverEachOrderOnce() throws InterruptedException {
+        Driver driver = driver("ROUTE");
+        driver.setAvailable(false);
+        driver = driverRepository.save(driver);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            orders.add(order("ROUTE-ORD-" + i, OrderStatus.READY_TO_DISPATCH, driver));
+        }
+        orders = orderRepository.saveAll(orders);
+        orderStatistics.reconcile();
+
+        // The whole route, and its two halves, each resent several times by a flaky driver app
+        List<OrderService.Delivery> route = orders.stream()
+                .map(order -> new OrderService.Delivery("route-" + order.getId(), order.getId(), null, null))
+                .toList();
+        List<List<OrderService.Delivery>> batches = new ArrayList<>();
+        for (int copy = 0; copy < 6; copy++) {
+            batches.add(route);
+            batches.add(route.subList(0, route.size() / 2));
+            batches.add(route.subList(route.size() / 2, route.size()));
+        }
+        Collections.shuffle(batches, new Random(13));
+        List<long[]> attempts = new ArrayList<>();
+        for (int i = 0; i < batches.size(); i++) {
+            attempts.add(new long[] {i});
+        }
+        Long driverId = driver.getId();
+        AtomicInteger delivered = new AtomicInteger();
+        Queue<OrderService.DeliveryOutcome> outcomes = new ConcurrentLinkedQueue<>();
+
+        Outcome outcome = race(attempts, batch -> {
+            OrderService.DeliveryBatch result = orderService.confirmDeliveries(driverId, batches.get((int) batch[0]));
+            delivered.addAndGet(result.delivered());
+            outcomes.addAll(result.outcomes());
+            return true;
+        });
+
+        assertThat(outcome.conflicts()).isZero();
+        assertThat(delivered).hasValue(orders.size());
+        assertThat(outcomes).extracting(OrderService.DeliveryOutcome::result)
+                .containsOnly(OrderService.DeliveryOutcome.Result.DELIVERED, OrderService.DeliveryOutcome.Result.ALREADY_CONFIRMED);
+        assertThat(orderRepository.findAllById(orders.stream().map(Order::getId).toList()))
+                .allMatch(order -> order.getStatus() == OrderStatus.DELIVERED);
+        assertThat(driverRepository.findById(driverId)).get().extracting(Driver::isAvailable).isEqualTo(true);
+        assertCountedOnce();
+        outcome.print("confirm-deliveries");
+    }
+
+    /**
+     * Runs the attempts on THREADS threads released together; business rejections (driver taken,
+     * order already moved on) are expected, conflicts only when retries ran out
+     */
+    private Outcome race(List<long[]> attempts, Function<long[], Boolean> attempt) throws InterruptedException {
+        Queue<long[]> work = new ConcurrentLinkedQueue<>(attempts);
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        double retriedBefore = conflictCount("retried");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long[] next;
+                while ((next = work.poll()) != null) {
+                    try {
+                        attempt.apply(next);
+                    } catch (OrderConflictException e) {
+                        conflicts.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (!isRejection(e)) {
+                            unexpected.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        long elapsedNanos = System.nanoTime() - started;
+
+        assertThat(unexpected).hasValue(0);
+        return new Outcome(attempts.size(), elapsedNanos, (long) (conflictCount("retried") - retriedBefore), conflicts.get());
+    }
+
+    private static boolean isRejection(RuntimeException e) {
+        String message = String.valueOf(e.getMessage());
+        return message.startsWith("Driver is not available")
+                || message.startsWith("Order must be in RECEIVED status")
+                || message.startsWith("Invalid status transition");
+    }
+
+    /**
+     * The in-memory counters, moved by each committed change, match a fresh count of the table
+     */
+    private void assertCountedOnce() {
+        Map<String, Object> counted = orderStatistics.getOrderStatistics();
+        orderStatistics.reconcile();
+        assertThat(counted).isEqualTo(orderStatistics.getOrderStatistics());
+    }
+
+    private double conflictCount(String outcome) {
+        return meterRegistry.find("wms.conflicts").tag("outcome", outcome).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private record Outcome(int attempts, long elapsedNanos, long retried, int conflicts) {
+
+        void print(String operation) {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%s: %d attempts on %d threads in %.0f ms (%.0f/s), %d retried after a conflict, %d gave up%n",
+                    operation, attempts, THREADS, seconds * 1000, attempts / seconds, retried, conflicts);
+        }
+    }
+
+    private static Driver driver(String name) {
+        Driver driver = new Driver();
+        driver.setName("Driver " + name);
+        driver.setLicenseNumber("LIC-" + name);
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail(name.toLowerCase() + "@swiftlogistics.lk");
+        driver.setAvailable(true);
+        return driver;
+    }
+
+    private static Order order(String clientRef, OrderStatus status, Driver driver) {
+        Order order = new Order();
+        order.setClientRef(clientRef);
+        order.setCustomerName("Customer " + clientRef);
+        order.setDeliveryAddress("1 Galle Road, Colombo 03");
+        order.setDeliveryDate(LocalDateTime.now().plusDays(1));
+        order.setStatus(status);
+        order.setAssignedDriver(driver);
+        return order;
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Postgres", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package lk.swiftlogistics.wms.service;
+
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.repo.OrderSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each change OrderService makes to an order must be visible to the next lookup, by id and by client
+ * reference, although both are served from the cache. Runs against the in-memory H2 database of the
+ * "embedded" profile.
+ */
+@SpringBootTest
+@ActiveProfiles("embedded")
+class OrderLookupCacheTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lookupsAreServedFromTheCache() {
+        Order order = orderRepository.save(order("CACHE-0"));
+        read(order);
+
+        // Behind the service's back, so nothing invalidates the cached order
+        jdbcTemplate.update("UPDATE orders SET customer_name = 'Changed' WHERE id = ?", order.getId());
+
+        assertThat(orderService.getOrderById(order.getId())).get().extracting(OrderSummary::customerName).isEqualTo("Customer");
+        assertThat(orderService.getOrderByClientRef("CACHE-0")).get().extracting(OrderSummary::customerName).isEqualTo("Customer");
+    }
+
+    @Test
+    void assigningADriverInvalidatesTheOrder() {
+        Order order = orderRepository.save(order("CACHE-1"));
+        Driver driver = driverRepository.save(driver("CACHE-D1"));
+        read(order);
+
+        orderService.assignDriverToOrder(order.getId(), driver.getId());
+
+        assertBothLookups(order, OrderStatus.READY_TO_DISPATCH, driver.getId());
+    }
+
+    @Test
+    void bulkAssigningADriverInvalidatesEveryAssignedOrder() {
+        Order first = orderRepository.save(order("CACHE-2"));
+        Order second = orderRepository.save(order("CACHE-3"));
+        Driver driver = driverRepository.save(driver("CACHE-D2"));
+        read(first);
+        read(second);
+
+        orderService.bulkAssignDriver(List.of(first.getId(), second.getId()), driver.getId());
+
+        assertBothLookups(first, OrderStatus.READY_TO_DISPATCH, driver.getId());
+        assertBothLookups(second, OrderStatus.READY_TO_DISPATCH, driver.getId());
+    }
+
+    @Test
+    void updatingTheStatusInvalidatesTheOrder() {
+        Order order = orderRepository.save(order("CACHE-4"));
+        Driver driver = driverRepository.save(driver("CACHE-D4"));
+        read(orderService.assignDriverToOrder(order.getId(), driver.getId()));
+
+        orderService.updateOrderStatus(order.getId(), OrderStatus.DELIVERED);
+
+        assertBothLookups(order, OrderStatus.DELIVERED, driver.getId());
+    }
+
+    @Test
+    void updatingTheDeliveryDateInvalidatesTheOrder() {
+        Order order = orderRepository.save(order("CACHE-5"));
+        LocalDateTime newDate = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.MINUTES);
+        read(order);
+
+        orderService.updateOrderDeliveryDate(order.getId(), newDate);
+
+        assertThat(orderService.getOrderById(order.getId())).get().extracting(OrderSummary::deliveryDate).isEqualTo(newDate);
+        assertThat(orderService.getOrderByClientRef(order.getClientRef())).get()
+                .extracting(OrderSummary::deliveryDate).isEqualTo(newDate);
+    }
+
+    /**
+     * Loads the order into both caches
+     */
+    private void read(Order order) {
+        assertThat(orderService.getOrderById(order.getId())).get().extracting(OrderSummary::status).isEqualTo(order.getStatus());
+        assertThat(orderService.getOrderByClientRef(order.getClientRef())).get()
+                .extracting(OrderSummary::status).isEqualTo(order.getStatus());
+    }
+
+    private void assertBothLookups(Order order, OrderStatus status, Long driverId) {
+        for (OrderSummary summary : List.of(orderService.getOrderById(order.getId()).orElseThrow(),
+                orderService.getOrderByClientRef(order.getClientRef()).orElseThrow())) {
+            assertThat(summary.status()).isEqualTo(status);
+            assertThat(summary.driverId()).isEqualTo(driverId);
+        }
+    }
+
+    private static Order order(String clientRef) {
+        Order order = new Order();
+        order.setClientRef(clientRef);
+        order.setCustomerName("Customer");
+        order.setDeliveryAddress("Colombo");
+        order.setDeliveryDate(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MINUTES));
+        order.setStatus(OrderStatus.RECEIVED);
+        return order;
+    }
+
+    private static Driver driver(String licenseNumber) {
+        Driver driver = new Driver();
+        driver.setName("Driver " + licenseNumber);
+        driver.setLicenseNumber(licenseNumber);
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail(licenseNumber.toLowerCase() + "@swiftlogistics.lk");
+        driver.setAvailable(true);
+        return driver;
+    }
+}
@@ -0,0 +1,205 @@
+package lk.swiftlogistics.wms.web;
+
+import jakarta.persistence.EntityManagerFactory;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against the in-memory H2 database of the "embedded" profile
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class DriverAppControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void driverListingUsesOneStatementHoweverManyDriversThereAre() throws Exception {
+        long withSeededDrivers = statementsForDriverListing();
+
+        for (int i = 0; i < 50; i++) {
+            Driver driver = driverRepository.save(driver("N1-" + i));
+            orderRepository.save(order("N1-" + i + "-a", driver, OrderStatus.READY_TO_DISPATCH));
+            orderRepository.save(order("N1-" + i + "-b", driver, OrderStatus.DELIVERED));
+        }
+        long withManyDrivers = statementsForDriverListing();
+
+        assertThat(withSeededDrivers).isEqualTo(1);
+        assertThat(withManyDrivers).isEqualTo(withSeededDrivers);
+    }
+
+    @Test
+    void driverListingCountsOnlyUndeliveredOrders() throws Exception {
+        Driver driver = driverRepository.save(driver("COUNT"));
+        orderRepository.save(order("COUNT-1", driver, OrderStatus.RECEIVED));
+        orderRepository.save(order("COUNT-2", driver, OrderStatus.READY_TO_DISPATCH));
+        orderRepository.save(order("COUNT-3", driver, OrderStatus.DELIVERED));
+        Driver idle = driverRepository.save(driver("IDLE"));
+
+        mockMvc.perform(get("/api/driver-app/drivers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.drivers[?(@.driverId == " + driver.getId() + ")].activeOrders").value(contains(2)))
+                .andExpect(jsonPath("$.drivers[?(@.driverId == " + idle.getId() + ")].activeOrders").value(contains(0)));
+    }
+
+    @Test
+    void batchConfirmationDeliversOnceAndReportsEveryConfirmation() throws Exception {
+        Driver driver = driver("BATCH");
+        driver.setAvailable(false);
+        driver = driverRepository.save(driver);
+        Driver other = driverRepository.save(driver("BATCH-OTHER"));
+        Order first = orderRepository.save(order("BATCH-1", driver, OrderStatus.READY_TO_DISPATCH));
+        Order second = orderRepository.save(order("BATCH-2", driver, OrderStatus.READY_TO_DISPATCH));
+        Order othersOrder = orderRepository.save(order("BATCH-3", other, OrderStatus.READY_TO_DISPATCH));
+        String batch = """
+                {"confirmations": [
+                  {"idempotencyKey": "k1", "orderId": %d, "deliveryNotes": "Left at reception"},
+                  {"idempotencyKey": "k2", "orderId": %d},
+                  {"idempotencyKey": "k3", "orderId": %d},
+                  {"idempotencyKey": "k4", "orderId": %d},
+                  {"idempotencyKey": "k2", "orderId": %d},
+                  {"idempotencyKey": "k5", "orderId": 999999}
+                ]}
+                """.formatted(first.getId(), second.getId(), second.getId(), othersOrder.getId(), first.getId())
+                .replace("\"k", "\"" + driver.getId() + "-k");
+        String confirmDeliveries = "/api/driver-app/driver/" + driver.getId() + "/confirm-deliveries";
+
+        mockMvc.perform(post(confirmDeliveries).contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.delivered").value(2))
+                .andExpect(jsonPath("$.driverAvailable").value(true))
+                .andExpect(jsonPath("$.results[*].result").value(contains(
+                        "DELIVERED", "DELIVERED", "ALREADY_DELIVERED", "NOT_ASSIGNED", "KEY_REUSED", "NOT_FOUND")));
+
+        // The app resends the batch after losing the response
+        mockMvc.perform(post(confirmDeliveries).contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.delivered").value(0))
+                .andExpect(jsonPath("$.results[*].result").value(contains(
+                        "ALREADY_CONFIRMED", "ALREADY_CONFIRMED", "ALREADY_DELIVERED", "NOT_ASSIGNED", "KEY_REUSED", "NOT_FOUND")));
+
+        assertThat(orderRepository.findById(othersOrder.getId())).get()
+                .extracting(Order::getStatus).isEqualTo(OrderStatus.READY_TO_DISPATCH);
+    }
+
+    @Test
+    void batchConfirmationRejectsMissingKeys() throws Exception {
+        mockMvc.perform(post("/api/driver-app/driver/1/confirm-deliveries").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"confirmations\": [{\"orderId\": 1}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void eventStreamPushesCommittedChangesAndReplaysThemAfterAReconnect() throws Exception {
+        Driver driver = driverRepository.save(driver("PUSH"));
+        Order order = orderRepository.save(order("PUSH-1", null, OrderStatus.RECEIVED));
+        String events = "/api/driver-app/driver/" + driver.getId() + "/events";
+
+        MockHttpServletResponse stream = mockMvc.perform(get(events))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        orderService.assignDriverToOrder(order.getId(), driver.getId());
+        String assigned = awaitEvent(stream, "ASSIGNED");
+        orderService.updateOrderStatus(order.getId(), OrderStatus.DELIVERED);
+        awaitEvent(stream, "DELIVERED");
+        assertThat(stream.getContentAsString()).contains("\"orderId\":" + order.getId());
+
+        // Reconnecting after the assignment replays only the delivery
+        MockHttpServletResponse resumed = mockMvc.perform(get(events).header("Last-Event-ID", assigned))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        awaitEvent(resumed, "DELIVERED");
+        assertThat(resumed.getContentAsString()).doesNotContain("event:ASSIGNED");
+
+        // An id from before this instance started cannot be replayed
+        MockHttpServletResponse stale = mockMvc.perform(get(events).header("Last-Event-ID", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        awaitEvent(stale, DriverEventHub.RESYNC);
+    }
+
+    /**
+     * @return the id of the first event with the name
+     */
+    private static String awaitEvent(MockHttpServletResponse stream, String name)
+            throws InterruptedException, UnsupportedEncodingException {
+        Pattern event = Pattern.compile("(?:id:(\\d+)\\n)?event:" + name + "\\n");
+        for (int i = 0; i < 100; i++) {
+            Matcher matcher = event.matcher(stream.getContentAsString());
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No " + name + " event in " + stream.getContentAsString());
+    }
+
+    private long statementsForDriverListing() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/driver-app/drivers")).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Driver driver(String licenseNumber) {
+        Driver driver = new Driver();
+        driver.setName("Driver " + licenseNumber);
+        driver.setLicenseNumber(licenseNumber);
+        driver.setPhoneNumber("+94 77 000 0000");
+        driver.setEmail(licenseNumber.toLowerCase() + "@swiftlogistics.lk");
+        return driver;
+    }
+
+    private static Order order(String clientRef, Driver driver, OrderStatus status) {
+        Order order = new Order();
+        order.setClientRef(clientRef);
+        order.setCustomerName("Customer");
+        order.setDeliveryAddress("Colombo");
+        order.setDeliveryDate(LocalDateTime.now().plusDays(1));
+        order.setAssignedDriver(driver);
+        order.setStatus(status);
+        return order;
+    }
+}
@@ -0,0 +1,142 @@
+package lk.swiftlogistics.wms.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lk.swiftlogistics.wms.WmsApplication;
+import lk.swiftlogistics.wms.domain.Driver;
+import lk.swiftlogistics.wms.domain.Order;
+import lk.swiftlogistics.wms.domain.OrderStatus;
+import lk.swiftlogistics.wms.repo.DriverRepository;
+import lk.swiftlogistics.wms.repo.OrderRepository;
+import lk.swiftlogistics.wms.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of the order listing, read from the in-memory H2 database (profile "embedded") and serialized
+ * with the application's ObjectMapper, as the listing endpoints return it.
+ *
+ * view=entity is the listing before OrderSummary: Order entities with the driver join-fetched and
+ * serialized as a nested Driver. view=summary is the current listing: OrderSummary rows selected directly.
+ * Each trial prints the bytes and SQL statements per response; the benchmark reports pages/sec.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=OrderListing
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderListingBenchmark {
+
+    static final int PAGE_SIZE = 100;
+    static final int DRIVERS = 20;
+    static final int ORDERS = 2_000;
+
+    private static final String ENTITY_PAGE = "SELECT o FROM Order o LEFT JOIN FETCH o.assignedDriver"
+            + " WHERE o.id > :afterId ORDER BY o.id";
+
+    @Param({"entity", "summary"})
+    public String view;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(WmsApplication.class)
+                .profiles("embedded")
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.generate_statistics=true")
+                .run();
+        orderService = context.getBean(OrderService.class);
+        entityManager = context.getBean(EntityManager.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        seed();
+
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        int bytes = page();
+        System.out.printf("%nview=%s: %d bytes/response, %d SQL statements/response, %d orders/page%n",
+                view, bytes, statistics.getPrepareStatementCount(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int page() {
+        return switch (view) {
+            case "entity" -> readOnly.execute(status -> serialize(entityManager.createQuery(ENTITY_PAGE, Order.class)
+                    .setParameter("afterId", 0L)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList()));
+            case "summary" -> serialize(orderService.getAllOrders(null, PAGE_SIZE).orders());
+            default -> throw new IllegalArgumentException("Unknown view " + view);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private int serialize(List<?> orders) {
+        try {
+            return objectMapper.writeValueAsBytes(orders).length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Most orders assigned, round robin over the drivers, like a busy dispatch day
+     */
+    private void seed() {
+        List<Driver> drivers = new ArrayList<>(DRIVERS);
+        for (int i = 0; i < DRIVERS; i++) {
+            Driver driver = new Driver();
+            driver.setName("Driver " + i);
+            driver.setLicenseNumber("BENCH-" + i);
+            driver.setPhoneNumber("+94 77 000 " + String.format("%04d", i));
+            driver.setEmail("driver" + i + "@swiftlogistics.lk");
+            drivers.add(driver);
+        }
+        drivers = context.getBean(DriverRepository.class).saveAll(drivers);
+
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setClientRef("BENCH-ORD-" + i);
+            order.setCustomerName("Customer " + i);
+            order.setDeliveryAddress(i + " Galle Road, Colombo 03");
+            order.setDeliveryDate(LocalDateTime.now().plusDays(i % 7));
+            order.setPackageInfo("Box " + (i % 5 + 1) + " of 5");
+            order.setWeight(1.5 + i % 10);
+            order.setWarehouseLocation("A-" + (i % 30) + "-" + (i % 4));
+            if (i % 4 != 0) {
+                order.setAssignedDriver(drivers.get(i % DRIVERS));
+                order.setStatus(OrderStatus.READY_TO_DISPATCH);
+            }
+            orders.add(order);
+        }
+        context.getBean(OrderRepository.class).saveAll(orders);
+    }
+}